@@ -0,0 +1,196 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Validates many numbers at once.  Unlike {@linkplain PaymentCardGenerator#passesLuhnCheck(String)}, bad input
+ * does not cause an exception:  null, empty and non-numeric entries are reported as malformed, alongside the
+ * entries which passed or failed.
+ * </p>
+ *
+ * <p>
+ * Indexed input at or above the parallel threshold is split into chunks which are validated on the common
+ * {@linkplain java.util.concurrent.ForkJoinPool}.  Streams are validated sequentially or in parallel according to
+ * the stream itself, so pass a parallel stream to spread a large stream across cores.
+ * </p>
+ *
+ * <p>
+ * Instances are stateless and may be shared between threads.
+ * </p>
+ */
+public class BatchLuhnValidator {
+
+    /** Inputs with at least this many entries are validated in parallel, unless told otherwise */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Entries per parallel chunk.  A multiple of 64, so that no two chunks write to the same word of a bit set. */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final int parallelThreshold;
+
+
+    public BatchLuhnValidator() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold Indexed inputs with at least this many entries are validated in parallel.
+     *                          Use {@linkplain Integer#MAX_VALUE} to always validate on the calling thread.
+     */
+    public BatchLuhnValidator(final int parallelThreshold) {
+        failIf(parallelThreshold < 1, () -> "Parallel threshold must be greater than zero");
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Validates a list of numbers.
+     *
+     * @param nums Numeric strings ending with a check digit.  Null entries are reported as malformed.
+     * @return Which entries passed and which were malformed
+     */
+    public LuhnBatchResult validate(final List<? extends CharSequence> nums) {
+        failIf(nums == null, () -> "Numbers is null");
+
+        if (nums instanceof RandomAccess) {
+            return validate(nums.size(), i -> Luhn.check(nums.get(i)));
+        }
+
+        final BitSet passed = new BitSet(nums.size());
+        final BitSet malformed = new BitSet();
+        int i = 0;
+
+        for (final CharSequence num : nums) {
+            record(Luhn.check(num), i++, passed, malformed);
+        }
+
+        return new LuhnBatchResult(nums.size(), passed, malformed);
+    }
+
+    /**
+     * Validates numbers packed end to end as ASCII digits in a single array, as read from a file or socket.
+     * Entry {@code i} occupies {@code data[offsets[i]]} up to, but not including, {@code data[offsets[i + 1]]}.
+     *
+     * @param data    ASCII digits
+     * @param offsets Start offsets of each entry, followed by the end offset of the last entry.  An array of
+     *                {@code n + 1} offsets describes {@code n} entries.
+     * @return Which entries passed and which were malformed
+     */
+    public LuhnBatchResult validate(final byte[] data, final int[] offsets) {
+        failIf(data == null, () -> "Data is null");
+        failIf(offsets == null || offsets.length == 0, () -> "Offsets is null or empty");
+
+        for (int i = 1; i < offsets.length; i++) {
+            final int entry = i - 1;
+            failIf(offsets[entry] < 0 || offsets[i] < offsets[entry] || offsets[i] > data.length, () -> "Entry %d is out of bounds".formatted(entry));
+        }
+
+        return validate(offsets.length - 1, i -> Luhn.check(data, offsets[i], offsets[i + 1]));
+    }
+
+    /**
+     * Validates a stream of numbers, keeping only the tallies.  The stream is consumed.
+     *
+     * @param nums Numeric strings ending with a check digit.  Null entries are reported as malformed.
+     * @return Tallies of the stream
+     */
+    public LuhnCounts count(final Stream<? extends CharSequence> nums) {
+        failIf(nums == null, () -> "Numbers is null");
+
+        final long[] counts = nums.mapToInt(Luhn::check).collect(
+            () -> new long[3],
+            (tally, result) -> tally[result + 1]++,
+            (left, right) -> {
+                for (int i = 0; i < left.length; i++) {
+                    left[i] += right[i];
+                }
+            });
+
+        return new LuhnCounts(counts[Luhn.PASSED + 1], counts[Luhn.FAILED + 1], counts[Luhn.MALFORMED + 1]);
+    }
+
+    private LuhnBatchResult validate(final int size, final IntUnaryOperator check) {
+        if (size < parallelThreshold) {
+            final BitSet passed = new BitSet(size);
+            final BitSet malformed = new BitSet();
+
+            for (int i = 0; i < size; i++) {
+                record(check.applyAsInt(i), i, passed, malformed);
+            }
+
+            return new LuhnBatchResult(size, passed, malformed);
+        }
+
+        // Each chunk owns a distinct run of words, so the chunks can write to the shared arrays without locking
+        final long[] passed = new long[(size + 63) >>> 6];
+        final long[] malformed = new long[passed.length];
+        final int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                final int result = check.applyAsInt(i);
+
+                if (result == Luhn.PASSED) {
+                    passed[i >>> 6] |= 1L << i;
+                } else if (result == Luhn.MALFORMED) {
+                    malformed[i >>> 6] |= 1L << i;
+                }
+            }
+        });
+
+        return new LuhnBatchResult(size, BitSet.valueOf(passed), BitSet.valueOf(malformed));
+    }
+
+    private static void record(final int result, final int index, final BitSet passed, final BitSet malformed) {
+        if (result == Luhn.PASSED) {
+            passed.set(index);
+        } else if (result == Luhn.MALFORMED) {
+            malformed.set(index);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.io.IOException;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * A compact, immutable card number.  The digits are held in a single {@code long} alongside the length,
+ * so a card number costs no more than a small object, and the card type is determined once, up front.
+ * </p>
+ *
+ * <p>
+ * Text is only produced when asked for.  The {@code appendTo} methods write the plain, grouped
+ * ({@code 4111 1111 1111 1111}) or masked ({@code ************1111}) forms directly into a
+ * caller-supplied {@linkplain StringBuilder} or {@linkplain Appendable}, so a caller which reuses its
+ * buffer never allocates.  {@linkplain #toString()} builds the plain form on first use and keeps it.
+ * </p>
+ *
+ * <p>
+ * Since this class is a {@linkplain CharSequence}, it can be handed to anything which accepts one
+ * without first being converted to a {@linkplain String}.
+ * </p>
+ */
+public final class CardNumber implements CharSequence, Comparable<CardNumber> {
+
+    private static final char GROUP_SEPARATOR = ' ';
+    private static final char MASK = '*';
+    private static final int UNMASKED_DIGITS = 4;
+
+    /** Unsigned, since a 19-digit number may not fit in a signed {@code long} */
+    private final long value;
+    private final int length;
+    private final CardType cardType;
+
+    private String string;
+
+
+    private CardNumber(final long value, final int length, final CardType cardType) {
+        this.value = value;
+        this.length = length;
+        this.cardType = cardType;
+    }
+
+    /**
+     * Parses a card number.  The number isn't required to pass Luhn validation.
+     *
+     * @param num A numeric string of 1 to 19 digits
+     * @return The card number
+     */
+    public static CardNumber of(final CharSequence num) {
+        failIf(num == null || num.length() == 0, () -> "Number is null or empty");
+        failIf(num.length() > Digits.MAX_LENGTH, () -> "Number is longer than %d digits".formatted(Digits.MAX_LENGTH));
+
+        final long value = Digits.parse(num, 0, num.length());
+        failIf(value == -1, () -> "Number contains a non-digit character");
+
+        return of(value, num.length());
+    }
+
+    /**
+     * Creates a card number from its numeric value.  The number isn't required to pass Luhn validation.
+     *
+     * @param value  An unsigned value
+     * @param length How many digits the card number has, including any leading zeros
+     * @return The card number
+     */
+    public static CardNumber of(final long value, final int length) {
+        failIf(length < 1 || length > Digits.MAX_LENGTH, () -> "Length must be between 1 and %d".formatted(Digits.MAX_LENGTH));
+        failIf(Digits.count(value) > length, () -> "Value has more than %d digits".formatted(length));
+
+        return new CardNumber(value, length, CardType.fromNumber(value, length));
+    }
+
+    /**
+     * Used by the generator, which already knows the card type
+     */
+    static CardNumber of(final long value, final int length, final CardType cardType) {
+        return new CardNumber(value, length, cardType);
+    }
+
+    /**
+     * @return The card type, or {@code null} if the number doesn't belong to a known card type
+     */
+    public CardType getCardType() {
+        return cardType;
+    }
+
+    /**
+     * @return The digits of this card number as an unsigned value.  Use {@linkplain Long#toUnsignedString(long)}
+     *         or {@linkplain Long#compareUnsigned(long, long)} when working with it directly.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * @param howMany How many leading digits to return
+     * @return The leading digits of this card number as a number
+     */
+    public long getPrefix(final int howMany) {
+        failIf(howMany < 1 || howMany > length, () -> "How many must be between 1 and %d".formatted(length));
+        return Digits.leading(value, length, howMany);
+    }
+
+    /**
+     * @return The rightmost digit
+     */
+    public int getCheckDigit() {
+        return (int) Long.remainderUnsigned(value, 10);
+    }
+
+    /**
+     * @param index Zero-based position from the left
+     * @return The digit at {@code index}
+     */
+    public int digitAt(final int index) {
+        checkIndex(index);
+        return Digits.digitAt(value, length, index);
+    }
+
+    /**
+     * @return {@code true} if this card number passes Luhn validation
+     */
+    public boolean passesLuhnCheck() {
+        return Luhn.passes(value, length);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return (char) ('0' + digitAt(index));
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Appends the digits, without separators, e.g. {@code 4111111111111111}
+     *
+     * @param sb The destination
+     * @return {@code sb}
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        final int start = sb.length();
+        sb.setLength(start + length);
+
+        long remaining = value;
+
+        for (int i = start + length - 1; i >= start; i--) {
+            sb.setCharAt(i, (char) ('0' + Long.remainderUnsigned(remaining, 10)));
+            remaining = Long.divideUnsigned(remaining, 10);
+        }
+
+        return sb;
+    }
+
+    /**
+     * Appends the digits, without separators, e.g. {@code 4111111111111111}
+     *
+     * @param out The destination
+     * @throws IOException If {@code out} throws one
+     */
+    public void appendTo(final Appendable out) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.append(charAt(i));
+        }
+    }
+
+    /**
+     * Appends the digits in the groups printed on the card, e.g. {@code 4111 1111 1111 1111}.  15-digit numbers
+     * are grouped 4-6-5, as American Express prints them; all other lengths are grouped by fours.
+     *
+     * @param sb The destination
+     * @return {@code sb}
+     */
+    public StringBuilder appendGroupedTo(final StringBuilder sb) {
+        int position = sb.length() + length + groupSeparators();
+        sb.setLength(position);
+
+        long remaining = value;
+
+        for (int i = length - 1; i >= 0; i--) {
+            sb.setCharAt(--position, (char) ('0' + Long.remainderUnsigned(remaining, 10)));
+            remaining = Long.divideUnsigned(remaining, 10);
+
+            if (i > 0 && isGroupStart(i)) {
+                sb.setCharAt(--position, GROUP_SEPARATOR);
+            }
+        }
+
+        return sb;
+    }
+
+    /**
+     * Appends the digits in the groups printed on the card, e.g. {@code 4111 1111 1111 1111}.  15-digit numbers
+     * are grouped 4-6-5, as American Express prints them; all other lengths are grouped by fours.
+     *
+     * @param out The destination
+     * @throws IOException If {@code out} throws one
+     */
+    public void appendGroupedTo(final Appendable out) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && isGroupStart(i)) {
+                out.append(GROUP_SEPARATOR);
+            }
+
+            out.append(charAt(i));
+        }
+    }
+
+    /**
+     * Appends the number with all but the last four digits masked, e.g. {@code ************1111}
+     *
+     * @param sb The destination
+     * @return {@code sb}
+     */
+    public StringBuilder appendMaskedTo(final StringBuilder sb) {
+        final int start = sb.length();
+        sb.setLength(start + length);
+
+        long remaining = value;
+
+        for (int i = length - 1; i >= 0; i--) {
+            if (isMasked(i)) {
+                sb.setCharAt(start + i, MASK);
+            } else {
+                sb.setCharAt(start + i, (char) ('0' + Long.remainderUnsigned(remaining, 10)));
+                remaining = Long.divideUnsigned(remaining, 10);
+            }
+        }
+
+        return sb;
+    }
+
+    /**
+     * Appends the number with all but the last four digits masked, e.g. {@code ************1111}
+     *
+     * @param out The destination
+     * @throws IOException If {@code out} throws one
+     */
+    public void appendMaskedTo(final Appendable out) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.append(isMasked(i) ? MASK : charAt(i));
+        }
+    }
+
+    /**
+     * @return The grouped form, e.g. {@code 4111 1111 1111 1111}
+     */
+    public String toGroupedString() {
+        return appendGroupedTo(new StringBuilder(length + length / 4)).toString();
+    }
+
+    /**
+     * @return The masked form, e.g. {@code ************1111}
+     */
+    public String toMaskedString() {
+        return appendMaskedTo(new StringBuilder(length)).toString();
+    }
+
+    /**
+     * @return The plain form, e.g. {@code 4111111111111111}
+     */
+    @Override
+    public String toString() {
+        String str = string;
+
+        if (str == null) {
+            str = appendTo(new StringBuilder(length)).toString();
+            string = str;
+        }
+
+        return str;
+    }
+
+    @Override
+    public int compareTo(final CardNumber other) {
+        final int cmp = Long.compareUnsigned(value, other.value);
+        return cmp != 0 ? cmp : Integer.compare(length, other.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || (o instanceof CardNumber other && value == other.value && length == other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(value) + length;
+    }
+
+    /**
+     * @return How many separators {@linkplain #isGroupStart(int)} places between the digits
+     */
+    private int groupSeparators() {
+        return length == 15 ? 2 : (length - 1) / 4;
+    }
+
+    private boolean isGroupStart(final int index) {
+        return length == 15 ? index == 4 || index == 10 : index % 4 == 0;
+    }
+
+    private boolean isMasked(final int index) {
+        return index < length - UNMASKED_DIGITS;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index %d is out of bounds for length %d".formatted(index, length));
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Reads a fixture file written by {@linkplain CardNumberFileWriter}.  The records are memory-mapped, so opening a
+ * file costs the same regardless of its size, and any record can be read directly by its index.
+ * </p>
+ *
+ * <p>
+ * Records can be read as {@linkplain CardNumber}s, or without creating any objects through the primitive
+ * accessors and {@linkplain #passesLuhnCheck(long)}.  A {@linkplain Cursor} is a reusable
+ * {@linkplain CharSequence} over a record, for passing records to string-based APIs without copying them.
+ * </p>
+ *
+ * <p>
+ * Reads are safe from any number of threads.  A {@linkplain Cursor} belongs to the thread which uses it.
+ * </p>
+ */
+public class CardNumberFileReader implements Closeable {
+
+    /** Records per mapped segment.  Keeps each mapping well under the 2 GB limit of a single buffer. */
+    private static final int RECORDS_PER_SEGMENT = 1 << 27;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long recordCount;
+    private final CardType[] cardTypes;
+    private final Map<Integer, Long> lengthCounts;
+    private final Map<CardType, Long> cardTypeCounts;
+
+
+    /**
+     * @param path The fixture file
+     * @throws IOException If the file can't be read or isn't a fixture file
+     */
+    public CardNumberFileReader(final Path path) throws IOException {
+        failIf(path == null, () -> "Path is null");
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            final ByteBuffer fixed = read(0, CardNumberFileWriter.MAGIC.length + Short.BYTES * 2 + Integer.BYTES);
+            final byte[] magic = new byte[CardNumberFileWriter.MAGIC.length];
+            fixed.get(magic);
+
+            if (!Arrays.equals(magic, CardNumberFileWriter.MAGIC)) {
+                throw new IOException("%s is not a card number fixture file".formatted(path));
+            }
+
+            final short version = fixed.getShort();
+            final short recordSize = fixed.getShort();
+
+            if (version != CardNumberFileWriter.VERSION || recordSize != CardNumberFileWriter.RECORD_SIZE) {
+                throw new IOException("%s has an unsupported version (%d) or record size (%d)".formatted(path, version, recordSize));
+            }
+
+            final int headerSize = fixed.getInt();
+            final ByteBuffer header = read(fixed.limit(), headerSize - fixed.limit());
+
+            recordCount = header.getLong();
+
+            if (channel.size() < headerSize + recordCount * CardNumberFileWriter.RECORD_SIZE) {
+                throw new IOException("%s is truncated".formatted(path));
+            }
+
+            final Map<Integer, Long> lengths = new TreeMap<>();
+
+            for (int length = 0; length <= Digits.MAX_LENGTH; length++) {
+                final long count = header.getLong();
+
+                if (count > 0) {
+                    lengths.put(length, count);
+                }
+            }
+
+            lengthCounts = Collections.unmodifiableMap(lengths);
+
+            final Map<CardType, Long> types = new EnumMap<>(CardType.class);
+            cardTypes = new CardType[header.getShort()];
+
+            for (int i = 0; i < cardTypes.length; i++) {
+                final byte[] name = new byte[header.get()];
+                header.get(name);
+
+                final long count = header.getLong();
+                cardTypes[i] = cardTypeNamed(new String(name, StandardCharsets.US_ASCII));
+
+                if (cardTypes[i] != null && count > 0) {
+                    types.put(cardTypes[i], count);
+                }
+            }
+
+            cardTypeCounts = Collections.unmodifiableMap(types);
+            segments = map(headerSize, recordCount);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return How many records the file holds
+     */
+    public long size() {
+        return recordCount;
+    }
+
+    /**
+     * @return How many records have each length.  Lengths with no records are left out.
+     */
+    public Map<Integer, Long> getLengthCounts() {
+        return lengthCounts;
+    }
+
+    /**
+     * @return How many records have each card type.  Card types with no records, and numbers which aren't of a
+     *         known card type, are left out.
+     */
+    public Map<CardType, Long> getCardTypeCounts() {
+        return cardTypeCounts;
+    }
+
+    /**
+     * @param index Zero-based record number
+     * @return The record as a card number
+     */
+    public CardNumber get(final long index) {
+        return CardNumber.of(getValue(index), getLength(index), getCardType(index));
+    }
+
+    /**
+     * @param index Zero-based record number
+     * @return The record's digits as an unsigned value
+     */
+    public long getValue(final long index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    /**
+     * @param index Zero-based record number
+     * @return The record's length, including any leading zeros
+     */
+    public int getLength(final long index) {
+        return segment(index).get(offset(index) + Long.BYTES);
+    }
+
+    /**
+     * @param index Zero-based record number
+     * @return The record's card type, or {@code null} if it isn't of a known card type
+     */
+    public CardType getCardType(final long index) {
+        final int type = segment(index).get(offset(index) + Long.BYTES + 1) & 0xFF;
+        return type < cardTypes.length ? cardTypes[type] : null;
+    }
+
+    /**
+     * @param index Zero-based record number
+     * @return {@code true} if the record passes Luhn validation
+     */
+    public boolean passesLuhnCheck(final long index) {
+        return Luhn.passes(getValue(index), getLength(index));
+    }
+
+    /**
+     * @return A new cursor, positioned at the first record
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A reusable {@linkplain CharSequence} over one record at a time.  Moving the cursor doesn't create any objects,
+     * so a single cursor can feed every record in a file to {@linkplain BatchLuhnValidator},
+     * {@linkplain CardType#fromNumber(CharSequence)} and the like.
+     */
+    public final class Cursor implements CharSequence {
+
+        private long index = -1;
+        private long value;
+        private int length;
+
+
+        private Cursor() {
+            if (recordCount > 0) {
+                moveTo(0);
+            }
+        }
+
+        /**
+         * @param index Zero-based record number
+         * @return This cursor
+         */
+        public Cursor moveTo(final long index) {
+            value = getValue(index);
+            length = getLength(index);
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * @return The record this cursor is positioned at, or -1 if the file is empty
+         */
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int i) {
+            if (i < 0 || i >= length) {
+                throw new IndexOutOfBoundsException("Index %d is out of bounds for length %d".formatted(i, length));
+            }
+
+            return (char) ('0' + Digits.digitAt(value, length, i));
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return CardNumber.of(value, length, null).toString();
+        }
+    }
+
+    private MappedByteBuffer segment(final long index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Index %d is out of bounds for %d records".formatted(index, recordCount));
+        }
+
+        return segments[(int) (index / RECORDS_PER_SEGMENT)];
+    }
+
+    private static int offset(final long index) {
+        return (int) (index % RECORDS_PER_SEGMENT) * CardNumberFileWriter.RECORD_SIZE;
+    }
+
+    private MappedByteBuffer[] map(final long start, final long records) throws IOException {
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((records + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+
+        for (int i = 0; i < mapped.length; i++) {
+            final long first = (long) i * RECORDS_PER_SEGMENT;
+            final long count = Math.min(RECORDS_PER_SEGMENT, records - first);
+
+            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + first * CardNumberFileWriter.RECORD_SIZE, count * CardNumberFileWriter.RECORD_SIZE);
+            mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        return mapped;
+    }
+
+    private ByteBuffer read(final long position, final int size) throws IOException {
+        if (size < 0 || channel.size() < position + size) {
+            throw new IOException("File is too short to be a card number fixture file");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private static CardType cardTypeNamed(final String name) {
+        for (final CardType cardType : CardType.values()) {
+            if (cardType.name().equals(name)) {
+                return cardType;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Writes card numbers to a compact binary fixture file, which {@linkplain CardNumberFileReader} can memory-map and
+ * read at random without parsing.  Every record has the same size, so record {@code i} is found by arithmetic.
+ * </p>
+ *
+ * <p>
+ * The file is little-endian and laid out as follows:
+ * </p>
+ *
+ * <pre>
+ *   Header
+ *     4 bytes    magic number, the ASCII characters "PCGF"
+ *     2 bytes    format version
+ *     2 bytes    record size
+ *     4 bytes    header size, which is where the first record begins
+ *     8 bytes    record count
+ *     20 x 8     how many records have each length, 0 through 19
+ *     2 bytes    card type count, n
+ *     n x        card type name (1 byte length, then ASCII), followed by 8 bytes with how many records have that type
+ *
+ *   Records
+ *     8 bytes    the digits, as an unsigned value
+ *     1 byte     length, including any leading zeros
+ *     1 byte     index into the header's card types, or 255 if the number isn't of a known card type
+ * </pre>
+ *
+ * <p>
+ * The header is rewritten with the final counts when the writer is closed.  Instances are not thread-safe.
+ * </p>
+ */
+public class CardNumberFileWriter implements Closeable {
+
+    static final byte[] MAGIC = "PCGF".getBytes(StandardCharsets.US_ASCII);
+    static final short VERSION = 1;
+    static final int UNKNOWN_CARD_TYPE = 0xFF;
+
+    /** How many bytes each record occupies */
+    public static final int RECORD_SIZE = 10;
+
+    private static final int BUFFER_SIZE = RECORD_SIZE * 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CardType[] cardTypes = CardType.values();
+    private final int headerSize;
+
+    private final long[] lengthCounts = new long[Digits.MAX_LENGTH + 1];
+    private final long[] cardTypeCounts = new long[cardTypes.length];
+    private long recordCount;
+    private boolean closed;
+
+
+    /**
+     * Creates the file, or truncates it if it exists.
+     *
+     * @param path Where to write
+     * @throws IOException If the file can't be opened
+     */
+    public CardNumberFileWriter(final Path path) throws IOException {
+        failIf(path == null, () -> "Path is null");
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        headerSize = headerSize(cardTypes);
+
+        // Reserve room for the header, which is written for real on close
+        channel.position(headerSize);
+    }
+
+    /**
+     * @param num The card number to write
+     * @throws IOException If the file can't be written
+     */
+    public void write(final CardNumber num) throws IOException {
+        failIf(num == null, () -> "Card number is null");
+        write(num.getValue(), num.length(), num.getCardType());
+    }
+
+    /**
+     * @param num A numeric string of 1 to 19 digits
+     * @throws IOException If the file can't be written
+     */
+    public void write(final CharSequence num) throws IOException {
+        write(CardNumber.of(num));
+    }
+
+    /**
+     * Writes a card number without creating any objects.
+     *
+     * @param value    The digits, as an unsigned value
+     * @param length   How many digits the card number has, including any leading zeros
+     * @param cardType The card type, or {@code null} if it isn't of a known card type
+     * @throws IOException If the file can't be written
+     */
+    public void write(final long value, final int length, final CardType cardType) throws IOException {
+        failIf(closed, () -> "Writer is closed");
+        failIf(length < 1 || length > Digits.MAX_LENGTH, () -> "Length must be between 1 and %d".formatted(Digits.MAX_LENGTH));
+
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+
+        buffer.putLong(value);
+        buffer.put((byte) length);
+        buffer.put((byte) (cardType == null ? UNKNOWN_CARD_TYPE : cardType.ordinal()));
+
+        lengthCounts[length]++;
+
+        if (cardType != null) {
+            cardTypeCounts[cardType.ordinal()]++;
+        }
+
+        recordCount++;
+    }
+
+    /**
+     * Writes the card numbers of a batch of records.  The file format has no room for the other fields.
+     *
+     * @param batch The records whose card numbers to write
+     * @throws IOException If the file can't be written
+     */
+    public void write(final CardRecordBatch batch) throws IOException {
+        failIf(batch == null, () -> "Batch is null");
+
+        for (int i = 0; i < batch.size; i++) {
+            write(batch.values[i], batch.lengths[i], batch.cardTypes[i]);
+        }
+    }
+
+    /**
+     * @return How many records have been written so far
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Writes any buffered records and the final header, then closes the file.
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try (channel) {
+            flush();
+            writeHeader();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.put(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short) RECORD_SIZE);
+        header.putInt(headerSize);
+        header.putLong(recordCount);
+
+        for (final long count : lengthCounts) {
+            header.putLong(count);
+        }
+
+        header.putShort((short) cardTypes.length);
+
+        for (final CardType cardType : cardTypes) {
+            final byte[] name = cardType.name().getBytes(StandardCharsets.US_ASCII);
+
+            header.put((byte) name.length);
+            header.put(name);
+            header.putLong(cardTypeCounts[cardType.ordinal()]);
+        }
+
+        header.flip();
+
+        long position = 0;
+
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    private static int headerSize(final CardType[] cardTypes) {
+        int size = MAGIC.length + Short.BYTES + Short.BYTES + Integer.BYTES + Long.BYTES + (Digits.MAX_LENGTH + 1) * Long.BYTES + Short.BYTES;
+
+        for (final CardType cardType : cardTypes) {
+            size += 1 + cardType.name().length() + Long.BYTES;
+        }
+
+        return size;
+    }
+}
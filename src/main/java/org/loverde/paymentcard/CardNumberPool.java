@@ -0,0 +1,253 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.RingBuffer;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Keeps a supply of pre-generated card numbers on hand for callers which can't afford to wait for one to be
+ * generated.  Each card type has its own bounded ring buffer, which a background thread fills using the bulk
+ * {@linkplain PaymentCardGenerator#generateListByCardType(int, CardType)} path.  Taking a number is lock-free and
+ * safe from any number of threads.
+ * </p>
+ *
+ * <p>
+ * Whenever a buffer drops to the refill watermark, the background thread tops it back up to capacity.  If a
+ * buffer runs dry anyway, {@linkplain #take(CardType)} generates a number on the calling thread and the miss is
+ * counted as an underflow in the card type's {@linkplain Metrics}.  A steadily rising underflow count means the
+ * capacity or watermark is too low for the rate at which numbers are being taken.
+ * </p>
+ *
+ * <p>
+ * Call {@linkplain #start()} to begin filling the buffers, and {@linkplain #close()} to stop the background thread.
+ * </p>
+ */
+public class CardNumberPool implements AutoCloseable {
+
+    /** Most numbers requested from the generator at once, so that one card type can't starve the others */
+    private static final int MAX_BATCH = 4096;
+
+    /**
+     * A point-in-time view of one card type's buffer.
+     *
+     * @param cardType   The card type
+     * @param available  How many numbers are waiting in the buffer
+     * @param taken      How many numbers have been handed out, including those generated on underflow
+     * @param underflows How many times the buffer was empty when a number was requested
+     * @param refills    How many times the background thread has topped up the buffer
+     */
+    public record Metrics(CardType cardType, int available, long taken, long underflows, long refills) {
+    }
+
+    private static final class Pool {
+        private final CardType cardType;
+        private final RingBuffer<String> buffer;
+        private final LongAdder taken = new LongAdder();
+        private final LongAdder underflows = new LongAdder();
+        private final AtomicLong refills = new AtomicLong();
+
+        private Pool(final CardType cardType, final int capacity) {
+            this.cardType = cardType;
+            this.buffer = new RingBuffer<>(capacity);
+        }
+    }
+
+    private final PaymentCardGenerator generator;
+    private final int refillWatermark;
+    private final Map<CardType, Pool> pools = new EnumMap<>(CardType.class);
+    private final Thread refiller;
+
+    private volatile boolean closed;
+
+
+    /**
+     * @param generator       Generates the numbers.  It must be safe to call from the background thread and from
+     *                        callers of {@linkplain #take(CardType)} at the same time.
+     * @param capacity        The most numbers to keep on hand for each card type.  It's rounded up to a power of two.
+     * @param refillWatermark The background thread refills a buffer once it holds this many numbers or fewer
+     * @param cardTypes       The card types to keep on hand
+     */
+    public CardNumberPool(final PaymentCardGenerator generator, final int capacity, final int refillWatermark, final CardType... cardTypes) {
+        failIf(generator == null, () -> "Generator is null");
+        failIf(capacity < 1, () -> "Capacity must be greater than zero");
+        failIf(refillWatermark < 0 || refillWatermark >= capacity, () -> "Refill watermark must be at least zero and less than the capacity");
+        failIf(cardTypes == null || cardTypes.length < 1, () -> "Card types is null or empty");
+
+        this.generator = generator;
+        this.refillWatermark = refillWatermark;
+
+        Arrays.stream(cardTypes).filter(Objects::nonNull).forEach(cardType -> pools.computeIfAbsent(cardType, ct -> new Pool(ct, capacity)));
+
+        failIf(pools.isEmpty(), () -> "Card types contains only nulls");
+
+        refiller = new Thread(this::refillUntilClosed, "CardNumberPool-refill");
+        refiller.setDaemon(true);
+    }
+
+    /**
+     * Starts the background thread which fills the buffers.
+     *
+     * @return This pool
+     */
+    public CardNumberPool start() {
+        failIf(closed, () -> "Pool is closed");
+        refiller.start();
+        return this;
+    }
+
+    /**
+     * Hands out a pre-generated number, or generates one on the calling thread if none are available.
+     *
+     * @param cardType The type of card number to take
+     * @return A card number for the specified card type
+     */
+    public String take(final CardType cardType) {
+        final String num = poll(cardType);
+
+        if (num != null) {
+            return num;
+        }
+
+        final String generated = generator.generateByCardType(cardType);
+        getPool(cardType).taken.increment();
+
+        return generated;
+    }
+
+    /**
+     * Hands out a pre-generated number, if one is available.  An empty buffer is counted as an underflow.
+     *
+     * @param cardType The type of card number to take
+     * @return A card number for the specified card type, or {@code null} if none are available
+     */
+    public String poll(final CardType cardType) {
+        final Pool pool = getPool(cardType);
+        final String num = pool.buffer.poll();
+
+        if (num == null) {
+            pool.underflows.increment();
+        } else {
+            pool.taken.increment();
+        }
+
+        if (num == null || pool.buffer.size() <= refillWatermark) {
+            LockSupport.unpark(refiller);
+        }
+
+        return num;
+    }
+
+    /**
+     * @param cardType A card type held by this pool
+     * @return The card type's current metrics
+     */
+    public Metrics getMetrics(final CardType cardType) {
+        final Pool pool = getPool(cardType);
+        return new Metrics(cardType, pool.buffer.size(), pool.taken.sum(), pool.underflows.sum(), pool.refills.get());
+    }
+
+    /**
+     * Stops the background thread and waits for it to finish.  Numbers can still be taken afterward, but the
+     * buffers won't be refilled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(refiller);
+
+        if (refiller.isAlive()) {
+            try {
+                refiller.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Pool getPool(final CardType cardType) {
+        final Pool pool = cardType == null ? null : pools.get(cardType);
+        failIf(pool == null, () -> "Card type %s is not held by this pool".formatted(cardType));
+        return pool;
+    }
+
+    private void refillUntilClosed() {
+        while (!closed) {
+            boolean refilled = false;
+
+            for (final Pool pool : pools.values()) {
+                if (pool.buffer.size() <= refillWatermark) {
+                    refill(pool);
+                    refilled = true;
+                }
+            }
+
+            // An unpark which arrives before this park leaves a permit behind, so no wake-up can be missed
+            if (!refilled) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void refill(final Pool pool) {
+        int missing = pool.buffer.capacity() - pool.buffer.size();
+
+        while (missing > 0 && !closed) {
+            final List<String> batch = generator.generateListByCardType(Math.min(missing, MAX_BATCH), pool.cardType);
+
+            for (final String num : batch) {
+                if (!pool.buffer.offer(num)) {
+                    missing = 0;
+                    break;
+                }
+
+                missing--;
+            }
+        }
+
+        pool.refills.incrementAndGet();
+    }
+}
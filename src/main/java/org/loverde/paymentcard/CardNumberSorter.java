@@ -0,0 +1,637 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Sorts and de-duplicates any number of card numbers, including more than fit in memory, into a text or
+ * {@linkplain CardNumberFileWriter fixture} file.  Bulk loads of the output see sorted, unique keys.
+ * </p>
+ *
+ * <p>
+ * Each card number is held as its digits in an unsigned {@code long}.  Added numbers fill an in-memory run; a full
+ * run is handed to a background thread, which sorts it, drops duplicates and writes it to a temporary file as raw
+ * {@code long}s, while the caller carries on filling the next run.  Producing numbers, sorting runs and writing them
+ * therefore overlap, and several runs are sorted in parallel.  {@linkplain #finish(Path, Format)} then reads every
+ * run back in large chunks and merges them, dropping duplicates across runs, in a single sequential pass.  The runs
+ * aren't memory-mapped, since a mapped file can't be deleted on Windows until the mapping is garbage collected.
+ * </p>
+ *
+ * <p>
+ * Numbers are sorted numerically, which for numbers of the same length is also their lexicographic order.  Since the
+ * length of a number is implied by its value, numbers with leading zeros can't be sorted.  Instances are not
+ * thread-safe; the parallelism is internal.
+ * </p>
+ *
+ * <pre>
+ *   try (final CardNumberSorter sorter = new CardNumberSorter(tempDir)) {
+ *       records.generate(1_000_000_000, new CardRecordBatch(8192), sorter::add, CardType.VISA);
+ *       sorter.finish(Path.of("sorted.pcg"), CardNumberSorter.Format.BINARY);
+ *   }
+ * </pre>
+ */
+public class CardNumberSorter implements Closeable {
+
+    /** Numbers per run unless otherwise specified:  32 MB per run buffer */
+    public static final int DEFAULT_RUN_SIZE = 1 << 22;
+
+    /** The largest run, which keeps a run file within a single mapping */
+    public static final int MAX_RUN_SIZE = 1 << 27;
+
+    /** Output formats for {@linkplain #finish(Path, Format)} */
+    public enum Format {
+        /** One number per line, in ASCII */
+        TEXT,
+
+        /** The {@linkplain CardNumberFileWriter} fixture format */
+        BINARY
+    }
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    /** Bytes read from each run at a time while merging */
+    private static final int MERGE_BUFFER_SIZE = 1 << 16;
+
+    private final Path tempDir;
+    private final int runSize;
+    private final ExecutorService sorters;
+
+    /** Run buffers which aren't in use.  There's one per sorting thread plus one for the caller to fill. */
+    private final BlockingQueue<long[]> freeBuffers;
+    private final int maxBuffers;
+    private int allocatedBuffers;
+
+    private final List<Future<Run>> runs = new ArrayList<>();
+    private long[] buffer;
+    private int count;
+    private long added;
+    private boolean finished;
+
+
+    /**
+     * Creates a sorter with runs of {@value #DEFAULT_RUN_SIZE} numbers, sorted by as many threads as there are
+     * processors.
+     *
+     * @param tempDir Where to write the runs.  They're deleted when the sorter is closed.
+     */
+    public CardNumberSorter(final Path tempDir) {
+        this(tempDir, DEFAULT_RUN_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param tempDir Where to write the runs.  They're deleted when the sorter is closed.
+     * @param runSize How many numbers each run holds.  Memory use is about {@code 8 * runSize * (threads + 1)} bytes.
+     * @param threads How many runs to sort and write at once
+     */
+    public CardNumberSorter(final Path tempDir, final int runSize, final int threads) {
+        failIf(tempDir == null, () -> "Temp directory is null");
+        failIf(runSize < 1 || runSize > MAX_RUN_SIZE, () -> "Run size must be between 1 and %d".formatted(MAX_RUN_SIZE));
+        failIf(threads < 1, () -> "Threads must be greater than zero");
+
+        this.tempDir = tempDir;
+        this.runSize = runSize;
+        this.maxBuffers = threads + 1;
+        this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+        this.sorters = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "card-number-sorter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param value A card number's digits, as an unsigned value of 1 to {@value Digits#MAX_LENGTH} digits other
+     *              than zero
+     */
+    public void add(final long value) {
+        failIf(finished, () -> "Sorter is finished");
+        failIf(value == 0 || Long.compareUnsigned(value, Digits.powerOfTen(Digits.MAX_LENGTH)) >= 0,
+            () -> "Value (%s) is zero or longer than %d digits".formatted(Long.toUnsignedString(value), Digits.MAX_LENGTH));
+
+        if (buffer == null) {
+            buffer = takeBuffer();
+        }
+
+        buffer[count++] = value;
+        added++;
+
+        if (count == runSize) {
+            submitRun();
+        }
+    }
+
+    /**
+     * @param num A numeric string without leading zeros
+     */
+    public void add(final CharSequence num) {
+        failIf(num == null || num.length() == 0, () -> "Number is null or empty");
+
+        final long value = Digits.parse(num, 0, num.length());
+
+        failIf(value == -1, () -> "Number (%s) contains a non-digit character or is longer than %d digits".formatted(num, Digits.MAX_LENGTH));
+        add(value, num.length());
+    }
+
+    /**
+     * Adds the card numbers of a batch of records.
+     *
+     * @param batch The records
+     */
+    public void add(final CardRecordBatch batch) {
+        failIf(batch == null, () -> "Batch is null");
+
+        for (int i = 0; i < batch.size; i++) {
+            add(batch.values[i], batch.lengths[i]);
+        }
+    }
+
+    /**
+     * Adds every card number in a fixture file.
+     *
+     * @param reader The fixture file
+     */
+    public void addAll(final CardNumberFileReader reader) {
+        failIf(reader == null, () -> "Reader is null");
+
+        for (long i = 0; i < reader.size(); i++) {
+            add(reader.getValue(i), reader.getLength(i));
+        }
+    }
+
+    /**
+     * Adds every card number in a text file with one number per line.  Lines may end with {@code \n} or
+     * {@code \r\n}, and blank lines are skipped.
+     *
+     * @param textFile The file
+     * @throws IOException If the file can't be read, or a line isn't a card number
+     */
+    public void addAll(final Path textFile) throws IOException {
+        failIf(textFile == null, () -> "Path is null");
+
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(textFile), OUTPUT_BUFFER_SIZE)) {
+            long value = 0;
+            int length = 0;
+            long line = 1;
+            int b;
+
+            while ((b = in.read()) != -1) {
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+
+                    if (++length > Digits.MAX_LENGTH) {
+                        throw new IOException("Line %d of %s is longer than %d digits".formatted(line, textFile, Digits.MAX_LENGTH));
+                    }
+                } else if (b == '\n') {
+                    if (length > 0) {
+                        addFromFile(value, length, line, textFile);
+                    }
+
+                    value = 0;
+                    length = 0;
+                    line++;
+                } else if (b != '\r') {
+                    throw new IOException("Line %d of %s contains a non-digit character".formatted(line, textFile));
+                }
+            }
+
+            if (length > 0) {
+                addFromFile(value, length, line, textFile);
+            }
+        }
+    }
+
+    /**
+     * @return How many numbers have been added, including duplicates
+     */
+    public long getAddedCount() {
+        return added;
+    }
+
+    /**
+     * Sorts the remaining numbers, merges all of the runs and writes the unique numbers in ascending order.
+     * The sorter can't be used afterward.
+     *
+     * @param output Where to write.  The file is created, or truncated if it exists.
+     * @param format What to write
+     * @return How many unique numbers were written
+     * @throws IOException If a run or the output can't be written
+     */
+    public long finish(final Path output, final Format format) throws IOException {
+        failIf(finished, () -> "Sorter is finished");
+        failIf(output == null, () -> "Output is null");
+        failIf(format == null, () -> "Format is null");
+
+        submitRun();
+        finished = true;
+
+        final List<Run> completed = new ArrayList<>(runs.size());
+
+        for (final Future<Run> run : runs) {
+            completed.add(await(run));
+        }
+
+        try (final Merger merger = new Merger(completed);
+             final Output out = format == Format.TEXT ? new TextOutput(output) : new BinaryOutput(output)) {
+
+            long written = 0;
+
+            while (merger.hasNext()) {
+                out.write(merger.next());
+                written++;
+            }
+
+            return written;
+        }
+    }
+
+    /**
+     * Waits for any runs still being written, then deletes all of them
+     *
+     * @throws IOException If a run can't be written or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        sorters.shutdown();
+
+        IOException failure = null;
+
+        for (final Future<Run> run : runs) {
+            try {
+                Files.deleteIfExists(await(run).path);
+            } catch (final IOException e) {
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void add(final long value, final int length) {
+        failIf(Digits.count(value) != length, () -> "Number (%d, %d digits) has leading zeros".formatted(value, length));
+        add(value);
+    }
+
+    private void addFromFile(final long value, final int length, final long line, final Path textFile) throws IOException {
+        if (Digits.count(value) != length) {
+            throw new IOException("Line %d of %s has leading zeros".formatted(line, textFile));
+        }
+
+        add(value);
+    }
+
+    private long[] takeBuffer() {
+        final long[] free = freeBuffers.poll();
+
+        if (free != null) {
+            return free;
+        }
+
+        if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return new long[runSize];
+        }
+
+        // Every buffer is being sorted; wait for one, which keeps memory bounded when producers outpace the disk
+        try {
+            return freeBuffers.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a run to be written", e);
+        }
+    }
+
+    private void submitRun() {
+        if (count == 0) {
+            return;
+        }
+
+        final long[] full = buffer;
+        final int size = count;
+
+        buffer = null;
+        count = 0;
+
+        runs.add(sorters.submit(() -> {
+            try {
+                return writeRun(full, size);
+            } finally {
+                freeBuffers.add(full);
+            }
+        }));
+    }
+
+    private Run writeRun(final long[] values, final int size) throws IOException {
+        // Flipping the sign bit makes a signed sort order the values as unsigned.  Runs stay flipped until output.
+        for (int i = 0; i < size; i++) {
+            values[i] ^= Long.MIN_VALUE;
+        }
+
+        Arrays.sort(values, 0, size);
+
+        int unique = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+
+        final Path path = Files.createTempFile(tempDir, "card-number-run-", ".bin");
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final LongBuffer longs = bytes.asLongBuffer();
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < unique; ) {
+                final int chunk = Math.min(unique - i, longs.capacity());
+
+                longs.clear();
+                longs.put(values, i, chunk);
+                bytes.clear().limit(chunk * Long.BYTES);
+
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+
+                i += chunk;
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+
+        return new Run(path, unique);
+    }
+
+    private static Run await(final Future<Run> run) throws IOException {
+        try {
+            return run.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+
+            throw new IllegalStateException("Sorting a run failed", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a run to be written", e);
+        }
+    }
+
+    private record Run(Path path, int size) {
+    }
+
+    /**
+     * Merges sorted runs with a binary min-heap of the runs' current values, skipping duplicates
+     */
+    private static final class Merger implements Closeable {
+        private final List<FileChannel> channels = new ArrayList<>();
+        private final ByteBuffer[] chunks;
+
+        /** Views of {@linkplain #chunks}, positioned at each run's current value */
+        private final LongBuffer[] runs;
+
+        /** Run indexes, ordered as a heap by each run's current value */
+        private final int[] heap;
+        private int heapSize;
+
+        private boolean hasLast;
+        private long last;
+
+        Merger(final List<Run> completed) throws IOException {
+            chunks = new ByteBuffer[completed.size()];
+            runs = new LongBuffer[chunks.length];
+            heap = new int[chunks.length];
+
+            try {
+                for (int i = 0; i < chunks.length; i++) {
+                    final Run run = completed.get(i);
+
+                    channels.add(FileChannel.open(run.path, StandardOpenOption.READ));
+                    chunks[i] = ByteBuffer.allocateDirect((int) Math.min(MERGE_BUFFER_SIZE, (long) run.size * Long.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+                    runs[i] = chunks[i].asLongBuffer();
+
+                    if (fill(i)) {
+                        heap[heapSize++] = i;
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        boolean hasNext() throws IOException {
+            while (heapSize > 0) {
+                final long value = current(heap[0]);
+
+                if (!hasLast || value != last) {
+                    return true;
+                }
+
+                advance();
+            }
+
+            return false;
+        }
+
+        /**
+         * @return The next unique value, unflipped.  Only valid after {@linkplain #hasNext()} returns {@code true}.
+         */
+        long next() throws IOException {
+            last = current(heap[0]);
+            hasLast = true;
+            advance();
+
+            return last ^ Long.MIN_VALUE;
+        }
+
+        private long current(final int run) {
+            return runs[run].get(runs[run].position());
+        }
+
+        private void advance() throws IOException {
+            final int run = heap[0];
+            final LongBuffer values = runs[run];
+
+            values.position(values.position() + 1);
+
+            if (!values.hasRemaining() && !fill(run)) {
+                heap[0] = heap[--heapSize];
+            }
+
+            if (heapSize > 0) {
+                siftDown(0);
+            }
+        }
+
+        private void siftDown(final int index) {
+            int parent = index;
+
+            while (true) {
+                final int left = parent * 2 + 1;
+
+                if (left >= heapSize) {
+                    return;
+                }
+
+                final int right = left + 1;
+                final int smaller = right < heapSize && current(heap[right]) < current(heap[left]) ? right : left;
+
+                if (current(heap[parent]) <= current(heap[smaller])) {
+                    return;
+                }
+
+                final int swap = heap[parent];
+                heap[parent] = heap[smaller];
+                heap[smaller] = swap;
+                parent = smaller;
+            }
+        }
+
+        /**
+         * Reads the next chunk of a run
+         *
+         * @return {@code false} if the run has been read to the end
+         */
+        private boolean fill(final int run) throws IOException {
+            final ByteBuffer chunk = chunks[run].clear();
+            final FileChannel channel = channels.get(run);
+
+            // Run files hold whole longs and chunks are a multiple of eight bytes, so only the last chunk is short
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk) < 0) {
+                    break;
+                }
+            }
+
+            runs[run].limit(chunk.position() / Long.BYTES).position(0);
+            return runs[run].hasRemaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (final FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    private interface Output extends Closeable {
+        void write(long value) throws IOException;
+    }
+
+    private static final class TextOutput implements Output {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        private int position;
+
+        TextOutput(final Path path) throws IOException {
+            out = Files.newOutputStream(path);
+        }
+
+        @Override
+        public void write(final long value) throws IOException {
+            if (position + Digits.MAX_LENGTH + 1 > buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+
+            final int length = Digits.count(value);
+
+            Digits.toAscii(value, buffer, position, position + length);
+            position += length;
+            buffer[position++] = '\n';
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                out.write(buffer, 0, position);
+            }
+        }
+    }
+
+    private static final class BinaryOutput implements Output {
+        private final CardNumberFileWriter writer;
+
+        BinaryOutput(final Path path) throws IOException {
+            writer = new CardNumberFileWriter(path);
+        }
+
+        @Override
+        public void write(final long value) throws IOException {
+            final int length = Digits.count(value);
+            writer.write(value, length, CardType.fromNumber(value, length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
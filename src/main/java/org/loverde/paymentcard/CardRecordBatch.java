@@ -0,0 +1,183 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * A reusable batch of complete test card records, filled by {@linkplain CardRecordGenerator}.  Rather than one
+ * object per record, the batch keeps one array per field, so filling and exporting a batch creates no objects and
+ * the same batch can be refilled indefinitely:
+ * </p>
+ *
+ * <ul>
+ *    <li>the card number, as an unsigned value and a length</li>
+ *    <li>the card type</li>
+ *    <li>the expiration date, packed into an {@code int} as YYYYMM</li>
+ *    <li>the security code (CVV or CID), whose length depends on the card type</li>
+ *    <li>the cardholder name, as an index into the generator's name dictionary</li>
+ * </ul>
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public final class CardRecordBatch {
+
+    final long[] values;
+    final byte[] lengths;
+    final CardType[] cardTypes;
+    final int[] expirations;
+    final short[] securityCodes;
+    final int[] nameIndexes;
+
+    List<String> names = List.of();
+    int size;
+
+
+    /**
+     * @param capacity The most records the batch can hold
+     */
+    public CardRecordBatch(final int capacity) {
+        failIf(capacity < 1, () -> "Capacity must be greater than zero");
+
+        values = new long[capacity];
+        lengths = new byte[capacity];
+        cardTypes = new CardType[capacity];
+        expirations = new int[capacity];
+        securityCodes = new short[capacity];
+        nameIndexes = new int[capacity];
+    }
+
+    /**
+     * @return How many records the batch holds
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The most records the batch can hold
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Empties the batch, keeping its arrays for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @param index Record index
+     * @return The card number's digits, as an unsigned value
+     */
+    public long getValue(final int index) {
+        return values[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return How many digits the card number has
+     */
+    public int getLength(final int index) {
+        return lengths[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return The card type
+     */
+    public CardType getCardType(final int index) {
+        return cardTypes[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return The card number as an object, for callers who don't mind the allocation
+     */
+    public CardNumber getCardNumber(final int index) {
+        return CardNumber.of(getValue(index), lengths[index], cardTypes[index]);
+    }
+
+    /**
+     * @param index Record index
+     * @return The expiration date, packed as YYYYMM:  for example, 202811 is November 2028
+     */
+    public int getExpiration(final int index) {
+        return expirations[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return The security code.  It may have fewer digits than {@linkplain CardType#getSecurityCodeLength()},
+     *         in which case it's printed with leading zeros.
+     */
+    public int getSecurityCode(final int index) {
+        return securityCodes[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return The cardholder name's index into {@linkplain #getNames()}
+     */
+    public int getNameIndex(final int index) {
+        return nameIndexes[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index Record index
+     * @return The cardholder name
+     */
+    public String getName(final int index) {
+        return names.get(getNameIndex(index));
+    }
+
+    /**
+     * @return The name dictionary which the name indexes refer to
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Spotbugs doesn't know that it's unmodifiable")
+    public List<String> getNames() {
+        return names;
+    }
+}
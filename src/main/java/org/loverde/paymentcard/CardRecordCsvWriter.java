@@ -0,0 +1,236 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Writes {@linkplain CardRecordBatch}es as UTF-8 CSV, with a header row followed by one row per record:
+ * </p>
+ *
+ * <pre>
+ *   number,card_type,expiration,security_code,name
+ *   4556737586899855,VISA,11/28,042,ALICE SMITH
+ * </pre>
+ *
+ * <p>
+ * Rows are encoded straight from the batch's columns into a byte buffer, so no strings are created per record.
+ * Names are encoded, and quoted if they contain a comma, quote or line break, once per dictionary rather than once
+ * per row.  Instances are not thread-safe.
+ * </p>
+ */
+public class CardRecordCsvWriter implements Closeable {
+
+    private static final byte[] HEADER = "number,card_type,expiration,security_code,name\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Card number, card type, expiration, security code and the separators between them, without the name */
+    private static final int MAX_ROW_SIZE_WITHOUT_NAME = 128;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[][] cardTypeNames;
+    private int position;
+
+    private List<String> encodedNamesSource;
+    private byte[][] encodedNames;
+    private long recordCount;
+    private boolean closed;
+
+
+    /**
+     * Creates the file, or truncates it if it exists.
+     *
+     * @param path Where to write
+     * @throws IOException If the file can't be opened
+     */
+    public CardRecordCsvWriter(final Path path) throws IOException {
+        this(Files.newOutputStream(failIfNull(path)));
+    }
+
+    /**
+     * @param out Where to write.  It's closed when this writer is closed.
+     * @throws IOException If the header can't be written
+     */
+    public CardRecordCsvWriter(final OutputStream out) throws IOException {
+        failIf(out == null, () -> "Output stream is null");
+
+        this.out = out;
+
+        final CardType[] cardTypes = CardType.values();
+        cardTypeNames = new byte[cardTypes.length][];
+
+        for (final CardType cardType : cardTypes) {
+            cardTypeNames[cardType.ordinal()] = cardType.name().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        put(HEADER);
+    }
+
+    /**
+     * @param batch The records to write
+     * @throws IOException If the output can't be written
+     */
+    public void write(final CardRecordBatch batch) throws IOException {
+        failIf(closed, () -> "Writer is closed");
+        failIf(batch == null, () -> "Batch is null");
+
+        final byte[][] names = encodedNames(batch.names);
+
+        for (int i = 0; i < batch.size; i++) {
+            if (position + MAX_ROW_SIZE_WITHOUT_NAME > buffer.length) {
+                flush();
+            }
+
+            final int length = batch.lengths[i];
+            Digits.toAscii(batch.values[i], buffer, position, position + length);
+            position += length;
+            buffer[position++] = ',';
+
+            final byte[] cardTypeName = cardTypeNames[batch.cardTypes[i].ordinal()];
+            System.arraycopy(cardTypeName, 0, buffer, position, cardTypeName.length);
+            position += cardTypeName.length;
+            buffer[position++] = ',';
+
+            // YYYYMM becomes MM/YY, as printed on the card
+            final int expiration = batch.expirations[i];
+            Digits.toAscii(expiration % 100, buffer, position, position + 2);
+            buffer[position + 2] = '/';
+            Digits.toAscii(expiration / 100 % 100, buffer, position + 3, position + 5);
+            buffer[position + 5] = ',';
+            position += 6;
+
+            final int securityCodeLength = batch.cardTypes[i].getSecurityCodeLength();
+            Digits.toAscii(batch.securityCodes[i], buffer, position, position + securityCodeLength);
+            position += securityCodeLength;
+            buffer[position++] = ',';
+
+            put(names[batch.nameIndexes[i]]);
+            put((byte) '\n');
+        }
+
+        recordCount += batch.size;
+    }
+
+    /**
+     * @return How many records have been written so far, not counting the header row
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Writes any buffered rows, then closes the output.
+     *
+     * @throws IOException If the output can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try (out) {
+            flush();
+        }
+    }
+
+    private byte[][] encodedNames(final List<String> names) {
+        if (names != encodedNamesSource) {
+            encodedNames = new byte[names.size()][];
+
+            for (int i = 0; i < encodedNames.length; i++) {
+                encodedNames[i] = escape(names.get(i)).getBytes(StandardCharsets.UTF_8);
+            }
+
+            encodedNamesSource = names;
+        }
+
+        return encodedNames;
+    }
+
+    private static String escape(final String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    private void put(final byte b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+
+        buffer[position++] = b;
+    }
+
+    private void put(final byte[] bytes) throws IOException {
+        if (position + bytes.length > buffer.length) {
+            flush();
+
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static Path failIfNull(final Path path) {
+        failIf(path == null, () -> "Path is null");
+        return path;
+    }
+}
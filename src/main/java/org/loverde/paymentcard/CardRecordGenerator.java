@@ -0,0 +1,187 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Generates complete test card records - card number, expiration date, security code and cardholder name - into
+ * {@linkplain CardRecordBatch}es.  Filling a batch creates no objects:  card numbers are generated as unsigned
+ * values, expiration dates and security codes are drawn as numbers, and names are drawn as indexes into a fixed
+ * dictionary.  Exporters such as {@linkplain CardNumberFileWriter#write(CardRecordBatch)} and
+ * {@linkplain CardRecordCsvWriter#write(CardRecordBatch)} consume the batch's columns directly.
+ * </p>
+ *
+ * <pre>
+ *   final CardRecordGenerator records = new CardRecordGenerator(List.of("ALICE SMITH", "BOB JONES"));
+ *
+ *   try (final CardRecordCsvWriter csv = new CardRecordCsvWriter(path)) {
+ *       records.generate(100_000_000, new CardRecordBatch(8192), csv::write, CardType.VISA, CardType.MASTERCARD);
+ *   }
+ * </pre>
+ *
+ * <p>
+ * Instances are immutable, so they may be shared between threads as long as each thread fills its own batch and the
+ * card number generator is thread-safe.  Records are drawn from the card number generator's source of randomness, so
+ * a generator constructed with a seeded {@linkplain java.util.random.RandomGenerator} makes the records reproducible.
+ * </p>
+ */
+public class CardRecordGenerator {
+
+    /** How many months of expiration dates the convenience constructor spreads records across */
+    public static final int DEFAULT_EXPIRATION_MONTHS = 60;
+
+    /**
+     * Receives each filled batch.  The batch is refilled once this returns, so implementations must not keep it.
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        void accept(CardRecordBatch batch) throws IOException;
+    }
+
+    private final PaymentCardGeneratorImpl generator;
+    private final List<String> names;
+    private final int[] expirations;
+
+
+    /**
+     * Creates a record generator with expiration dates spread across the {@value #DEFAULT_EXPIRATION_MONTHS}
+     * months after the current one.
+     *
+     * @param names The cardholder name dictionary
+     */
+    public CardRecordGenerator(final List<String> names) {
+        this(new PaymentCardGeneratorImpl(), names, YearMonth.now().plusMonths(1), DEFAULT_EXPIRATION_MONTHS);
+    }
+
+    /**
+     * @param generator        Generates the card numbers.  Pass one constructed with an
+     *                         {@linkplain IssuedNumberLedger} to keep card numbers unique.
+     * @param names            The cardholder name dictionary
+     * @param firstExpiration  The earliest expiration date
+     * @param expirationMonths How many consecutive months, starting with {@code firstExpiration}, expiration
+     *                         dates are drawn from
+     */
+    public CardRecordGenerator(final PaymentCardGeneratorImpl generator, final List<String> names, final YearMonth firstExpiration, final int expirationMonths) {
+        failIf(generator == null, () -> "Generator is null");
+        failIf(names == null || names.isEmpty(), () -> "Names is null or empty");
+        failIf(firstExpiration == null, () -> "First expiration is null");
+        failIf(expirationMonths < 1, () -> "Expiration months must be greater than zero");
+
+        this.generator = generator;
+        this.names = List.copyOf(names);
+        this.expirations = new int[expirationMonths];
+
+        for (int i = 0; i < expirationMonths; i++) {
+            final YearMonth month = firstExpiration.plusMonths(i);
+            expirations[i] = month.getYear() * 100 + month.getMonthValue();
+        }
+    }
+
+    /**
+     * @return The cardholder name dictionary
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Spotbugs doesn't know that it's unmodifiable")
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Replaces the contents of a batch with new records.
+     *
+     * @param batch     The batch to fill
+     * @param howMany   How many records to generate, up to the batch's capacity
+     * @param cardTypes The card types to draw from, with equal probability
+     */
+    public void fill(final CardRecordBatch batch, final int howMany, final CardType... cardTypes) {
+        failIf(batch == null, () -> "Batch is null");
+        failIf(howMany < 0 || howMany > batch.capacity(), () -> "How many must be between 0 and the batch's capacity (%d)".formatted(batch.capacity()));
+        validateCardTypes(cardTypes);
+
+        final RandomGenerator random = generator.random();
+
+        for (int i = 0; i < howMany; i++) {
+            final CardType cardType = cardTypes[cardTypes.length == 1 ? 0 : random.nextInt(cardTypes.length)];
+            final int length = PaymentCardGeneratorImpl.randomLength(cardType, random);
+
+            batch.values[i] = generator.generateValue(PaymentCardGeneratorImpl.randomPrefix(cardType, random), length);
+            batch.lengths[i] = (byte) length;
+            batch.cardTypes[i] = cardType;
+            batch.expirations[i] = expirations[random.nextInt(expirations.length)];
+            batch.securityCodes[i] = (short) random.nextInt(cardType.getSecurityCodeLength() == 4 ? 10_000 : 1_000);
+            batch.nameIndexes[i] = random.nextInt(names.size());
+        }
+
+        batch.names = names;
+        batch.size = howMany;
+    }
+
+    /**
+     * Generates records a batch at a time, handing each batch to {@code sink} before refilling it.
+     *
+     * @param howMany   How many records to generate in total
+     * @param batch     The batch to fill repeatedly
+     * @param sink      Receives each batch; typically an exporter's {@code write} method
+     * @param cardTypes The card types to draw from, with equal probability
+     * @throws IOException If {@code sink} throws it
+     */
+    public void generate(final long howMany, final CardRecordBatch batch, final BatchSink sink, final CardType... cardTypes) throws IOException {
+        failIf(howMany <= 0, () -> "How many must be greater than zero");
+        failIf(batch == null, () -> "Batch is null");
+        failIf(sink == null, () -> "Sink is null");
+        validateCardTypes(cardTypes);
+
+        for (long remaining = howMany; remaining > 0; remaining -= batch.size()) {
+            fill(batch, (int) Math.min(remaining, batch.capacity()), cardTypes);
+            sink.accept(batch);
+        }
+    }
+
+    private static void validateCardTypes(final CardType[] cardTypes) {
+        failIf(cardTypes == null || cardTypes.length < 1, () -> "Card types is null or empty");
+
+        for (final CardType cardType : cardTypes) {
+            failIf(cardType == null, () -> "Card types contains a null");
+        }
+    }
+}
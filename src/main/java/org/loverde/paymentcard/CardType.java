@@ -34,6 +34,7 @@
 package org.loverde.paymentcard;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.loverde.paymentcard.internal.Digits;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -51,7 +52,7 @@ import static org.loverde.paymentcard.internal.Objects.failIf;
  */
 public enum CardType {
     AMERICAN_EXPRESS(
-        prefixesFromRange(
+        List.of(
             new Range(34, 34),
             new Range(37, 37)),
 
@@ -59,12 +60,12 @@ public enum CardType {
     ),
 
     VISA(
-        prefixesFromRange(new Range(4, 4)),
+        List.of(new Range(4, 4)),
         Set.of(13, 16, 19)
     ),
 
     MASTERCARD(
-        prefixesFromRange(
+        List.of(
             new Range(51, 55),
             new Range(2221, 2720)),
 
@@ -72,7 +73,7 @@ public enum CardType {
     ),
 
     DISCOVER(
-        prefixesFromRange(
+        List.of(
             new Range(65, 65),
             new Range(644, 649),
             new Range(6011, 6011),
@@ -81,15 +82,77 @@ public enum CardType {
         Set.of(16, 19)
     );
 
+    private final List<Range> ranges;
     private final Set<Long> prefixes;
     private final Set<Integer> lengths;
 
 
-    CardType(final Set<Long> prefixes, final Set<Integer> lengths) {
-        this.prefixes = prefixes;
+    CardType(final List<Range> ranges, final Set<Integer> lengths) {
+        this.ranges = ranges;
+        this.prefixes = prefixesFromRange(ranges.toArray(new Range[0]));
         this.lengths = lengths;
     }
 
+    /**
+     * Determines the card type of a number by its prefix and length.
+     *
+     * @param num A numeric string
+     * @return The matching card type, or {@code null} if the number doesn't belong to a known card type
+     */
+    public static CardType fromNumber(final CharSequence num) {
+        failIf(num == null || num.length() == 0, () -> "Number is null or empty");
+
+        final long value = Digits.parse(num, 0, num.length());
+
+        return value == -1 ? null : fromNumber(value, num.length());
+    }
+
+    /**
+     * Determines the card type of a number by its prefix and length, without any string parsing.
+     *
+     * @param value  An unsigned value
+     * @param length How many digits {@code value} is considered to have, including leading zeros
+     * @return The matching card type, or {@code null} if the number doesn't belong to a known card type
+     */
+    static CardType fromNumber(final long value, final int length) {
+        for (final CardType cardType : VALUES) {
+            if (cardType.matches(value, length)) {
+                return cardType;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean matches(final long value, final int length) {
+        if (!lengths.contains(length)) {
+            return false;
+        }
+
+        for (final Range r : ranges) {
+            final int prefixLength = Digits.count(r.start());
+
+            if (prefixLength <= length) {
+                final long prefix = Digits.leading(value, length, prefixLength);
+
+                if (prefix >= r.start() && prefix <= r.end()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The prefix ranges from which {@linkplain #getPrefixes()} is built.  Each range's start and end
+     *         have the same number of digits.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Spotbugs doesn't know that they're unmodifiable")
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
     @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Spotbugs doesn't know that they're unmodifiable")
     public Set<Long> getPrefixes() {
         return prefixes;
@@ -100,6 +163,16 @@ public enum CardType {
         return lengths;
     }
 
+    /**
+     * @return How many digits the card's security code has:  American Express prints a four-digit CID on the
+     *         front of the card, while the other card types print a three-digit CVV on the back
+     */
+    public int getSecurityCodeLength() {
+        return this == AMERICAN_EXPRESS ? 4 : 3;
+    }
+
+    private static final CardType[] VALUES = values();
+
     private static Set<Long> prefixesFromRange(final Range... ranges) {
         failIf(ranges == null || ranges.length == 0, () -> "Ranges is null or empty");
 
@@ -0,0 +1,453 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * A persistent record of every card number which has been issued, so that a generator can avoid handing out the
+ * same number twice, even across separate runs of the JVM.  Pass a ledger to
+ * {@linkplain PaymentCardGeneratorImpl#PaymentCardGeneratorImpl(IssuedNumberLedger)} to have every generated number
+ * checked against it and recorded in it.
+ * </p>
+ *
+ * <p>
+ * The ledger is a hash set of card numbers held in memory-mapped files.  A bitmap keyed by prefix and length would
+ * need a bit for every possible number (10<sup>14</sup> of them for a 16-digit Visa number), so only the numbers
+ * which have actually been issued are stored.  Numbers are recorded with an atomic compare-and-set directly in the
+ * mapped file, so any number of threads can share a ledger.  Opening an existing ledger maps it rather than reading
+ * it, so it's ready immediately regardless of its size, and the operating system pages in only the parts which are
+ * touched.
+ * </p>
+ *
+ * <p>
+ * The ledger is made up of segments.  The first is the file given to the constructor, and its capacity is chosen
+ * when the file is created.  To keep probing short, a segment takes no new numbers once it's three quarters full;
+ * the ledger then adds another segment of twice the size, up to {@value #MAX_CAPACITY} slots, in a file next to
+ * the first whose name has {@code .1}, {@code .2} and so on appended.  There's no limit to the number of segments,
+ * but checking a number probes each of them, so a capacity close to the expected number of numbers keeps checks
+ * fastest.  Only one JVM at a time should open a ledger.
+ * </p>
+ *
+ * <p>
+ * A number is identified by its digits, so it must be between 1 and 19 digits and may not be zero.  Changes reach
+ * the files when the operating system writes back the mapped pages, or when {@linkplain #force()} or
+ * {@linkplain #close()} is called.
+ * </p>
+ */
+public class IssuedNumberLedger implements Closeable {
+
+    /** The most slots a segment can have, which keeps each segment within a single mapping */
+    public static final int MAX_CAPACITY = 1 << 27;
+
+    private static final byte[] MAGIC = "PCGL".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int HEADER_SIZE = 64;
+
+    /** Closes off an empty slot in a full segment.  It has 20 digits as an unsigned value, so it's never a card number. */
+    private static final long SEALED = -1L;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+
+    private volatile Segment[] segments;
+
+
+    /**
+     * Opens a ledger, creating it if it doesn't exist.
+     *
+     * @param path     The ledger's first segment
+     * @param capacity The number of slots in the first segment of a new ledger, rounded up to a power of two.  Up to
+     *                 three quarters of them can be filled before another segment is added.  Ignored if the ledger
+     *                 already exists.
+     * @throws IOException If a segment can't be opened, or exists but isn't part of a ledger
+     */
+    public IssuedNumberLedger(final Path path, final int capacity) throws IOException {
+        failIf(path == null, () -> "Path is null");
+        failIf(capacity < 1 || capacity > MAX_CAPACITY, () -> "Capacity must be between 1 and %d".formatted(MAX_CAPACITY));
+
+        this.path = path;
+
+        final boolean exists = Files.exists(path) && Files.size(path) > 0;
+        Segment[] opened = { new Segment(path, Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1) };
+
+        try {
+            // A new ledger has no other segments; any files which look like them are deleted as it grows
+            for (Path next = segmentPath(1); exists && Files.exists(next) && Files.size(next) > 0; next = segmentPath(opened.length)) {
+                opened = Arrays.copyOf(opened, opened.length + 1);
+                opened[opened.length - 1] = new Segment(next, 0);
+            }
+        } catch (final IOException | RuntimeException e) {
+            for (final Segment segment : opened) {
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+
+            throw e;
+        }
+
+        segments = opened;
+    }
+
+    /**
+     * Records a number as issued, unless it already was.
+     *
+     * @param num The card number
+     * @return {@code true} if the number was newly recorded, {@code false} if it had already been issued
+     * @throws UncheckedIOException If the ledger is full and another segment can't be created
+     */
+    public boolean markIssued(final CardNumber num) {
+        failIf(num == null, () -> "Card number is null");
+        return markIssued(num.getValue());
+    }
+
+    /**
+     * Records a number as issued, unless it already was.
+     *
+     * @param value The card number's digits, as an unsigned value
+     * @return {@code true} if the number was newly recorded, {@code false} if it had already been issued
+     * @throws UncheckedIOException If the ledger is full and another segment can't be created
+     */
+    public boolean markIssued(final long value) {
+        failIf(value == 0, () -> "Zero can't be recorded");
+        failIf(!isCardNumber(value), () -> "Value has more than %d digits".formatted(Digits.MAX_LENGTH));
+
+        // Every segment but the last is full, so the number is either in one of them or belongs in the last
+        for (int i = 0; ; i++) {
+            Segment[] current = segments;
+
+            if (i == current.length) {
+                current = grow(i);
+            }
+
+            final Outcome outcome = current[i].markIssued(value);
+
+            if (outcome != Outcome.FULL) {
+                return outcome == Outcome.ADDED;
+            }
+        }
+    }
+
+    /**
+     * @param value The card number's digits, as an unsigned value
+     * @return {@code true} if the number has been issued
+     */
+    public boolean isIssued(final long value) {
+        if (value == 0 || !isCardNumber(value)) {
+            return false;
+        }
+
+        for (final Segment segment : segments) {
+            if (segment.contains(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return How many numbers have been recorded
+     */
+    public long size() {
+        long size = 0;
+
+        for (final Segment segment : segments) {
+            size += segment.count();
+        }
+
+        return size;
+    }
+
+    /**
+     * @return How many numbers can be recorded before the ledger adds another segment
+     */
+    public long capacity() {
+        long capacity = 0;
+
+        for (final Segment segment : segments) {
+            capacity += segment.maxEntries;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Writes any changes through to the files
+     */
+    public void force() {
+        for (final Segment segment : segments) {
+            segment.map.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for (final Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (final IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Adds a segment, unless another thread already has
+     *
+     * @param length How many segments the caller found
+     * @return The segments, of which there are more than {@code length}
+     */
+    private synchronized Segment[] grow(final int length) {
+        final Segment[] current = segments;
+
+        if (current.length > length) {
+            return current;
+        }
+
+        final Path next = segmentPath(current.length);
+        final Segment[] grown = Arrays.copyOf(current, current.length + 1);
+
+        try {
+            // Anything here was left behind by a ledger whose first segment was deleted without the rest
+            Files.deleteIfExists(next);
+            grown[current.length] = new Segment(next, (int) Math.min(2L * current[current.length - 1].slots(), MAX_CAPACITY));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("The ledger is full and %s could not be created".formatted(next), e);
+        }
+
+        segments = grown;
+        return grown;
+    }
+
+    private static boolean isCardNumber(final long value) {
+        return Long.compareUnsigned(value, Digits.powerOfTen(Digits.MAX_LENGTH)) < 0;
+    }
+
+    private Path segmentPath(final int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private enum Outcome {
+        ADDED,
+        PRESENT,
+        /** The segment is full and doesn't contain the number */
+        FULL
+    }
+
+    private static final class Segment implements Closeable {
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private final int mask;
+        private final long maxEntries;
+
+        /**
+         * @param slots The number of slots, a power of two, if the segment doesn't exist yet
+         */
+        Segment(final Path path, final int slots) throws IOException {
+            final boolean exists = Files.exists(path) && Files.size(path) > 0;
+
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try {
+                final int capacity = exists ? readCapacity(path) : slots;
+                final long fileSize = HEADER_SIZE + (long) capacity * Long.BYTES;
+
+                if (exists && channel.size() != fileSize) {
+                    throw new IOException("%s is not the expected size for a ledger of %d slots".formatted(path, capacity));
+                }
+
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                mask = capacity - 1;
+                maxEntries = capacity - capacity / 4;
+
+                if (!exists) {
+                    map.put(0, MAGIC);
+                    map.order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC.length, VERSION).putLong(CAPACITY_OFFSET, capacity);
+                    map.force();
+                }
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        Outcome markIssued(final long value) {
+            int slot = slotOf(value);
+            int probes = 0;
+
+            while (probes <= mask) {
+                final int offset = offsetOf(slot);
+                final long existing = (long) LONGS.getVolatile(map, offset);
+
+                if (existing == value) {
+                    return Outcome.PRESENT;
+                }
+
+                if (existing == SEALED) {
+                    return Outcome.FULL;
+                }
+
+                if (existing == 0) {
+                    // Once the segment is full, the slot is sealed instead, so that no other thread can record the
+                    // number here after this one has gone on to record it in the next segment.  The count is only
+                    // raised once the slot is won; threads racing for the last entries can overshoot it slightly.
+                    final boolean full = count() >= maxEntries;
+
+                    if (LONGS.compareAndSet(map, offset, 0L, full ? SEALED : value)) {
+                        if (full) {
+                            return Outcome.FULL;
+                        }
+
+                        LONGS.getAndAdd(map, COUNT_OFFSET, 1L);
+                        return Outcome.ADDED;
+                    }
+
+                    // Another thread claimed the slot first; look at what it wrote before moving on
+                    continue;
+                }
+
+                slot = (slot + 1) & mask;
+                probes++;
+            }
+
+            // Every slot holds another number
+            return Outcome.FULL;
+        }
+
+        boolean contains(final long value) {
+            int slot = slotOf(value);
+
+            for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+                final long existing = (long) LONGS.getVolatile(map, offsetOf(slot));
+
+                if (existing == value) {
+                    return true;
+                }
+
+                if (existing == 0 || existing == SEALED) {
+                    return false;
+                }
+            }
+
+            return false;
+        }
+
+        long count() {
+            return (long) LONGS.getVolatile(map, COUNT_OFFSET);
+        }
+
+        int slots() {
+            return mask + 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                map.force();
+            }
+        }
+
+        private int slotOf(final long value) {
+            // Finalizer from MurmurHash3, so that sequential numbers spread across the table
+            long h = value;
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+
+            return (int) h & mask;
+        }
+
+        private static int offsetOf(final int slot) {
+            return HEADER_SIZE + slot * Long.BYTES;
+        }
+
+        private int readCapacity(final Path path) throws IOException {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("%s is too short to be a ledger".formatted(path));
+                }
+            }
+
+            final byte[] magic = new byte[MAGIC.length];
+            header.get(0, magic);
+
+            final long slots = header.getLong(CAPACITY_OFFSET);
+
+            if (!Arrays.equals(magic, MAGIC) || header.getInt(MAGIC.length) != VERSION || slots < 1 || slots > MAX_CAPACITY || Long.bitCount(slots) != 1) {
+                throw new IOException("%s is not a ledger".formatted(path));
+            }
+
+            return (int) slots;
+        }
+    }
+}
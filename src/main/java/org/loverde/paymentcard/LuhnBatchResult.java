@@ -0,0 +1,62 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.BitSet;
+
+
+/**
+ * The outcome of validating an indexed batch of numbers.  Bit {@code i} of {@linkplain #passed()} is set if entry
+ * {@code i} passed Luhn validation, and bit {@code i} of {@linkplain #malformed()} is set if entry {@code i} was
+ * null, empty or contained a non-digit.  An entry with neither bit set failed Luhn validation.
+ *
+ * @param size      How many entries were validated
+ * @param passed    Entries which passed Luhn validation
+ * @param malformed Entries which could not be validated
+ */
+@SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"}, justification = "The bit sets are handed over to the caller, who owns them")
+public record LuhnBatchResult(int size, BitSet passed, BitSet malformed) {
+
+    /**
+     * @return Tallies of the batch
+     */
+    public LuhnCounts counts() {
+        final int passedCount = passed.cardinality();
+        final int malformedCount = malformed.cardinality();
+
+        return new LuhnCounts(passedCount, size - passedCount - malformedCount, malformedCount);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Digits;
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Produces valid neighbors of a seed card number for fuzzing:  numbers with the same prefix and length, but with
+ * one or more body digits changed and the check digit recomputed.
+ * </p>
+ *
+ * <p>
+ * The mutator keeps the digits in a buffer along with their running Luhn sum.  Whether a digit is doubled depends
+ * only on its distance from the check digit, which never changes, so replacing a digit adjusts the sum by the
+ * difference between the old and new digit's contributions, and the new check digit follows from the sum.  Every
+ * edit is therefore constant-time, regardless of the number's length, and creates no objects.
+ * </p>
+ *
+ * <p>
+ * The mutator is itself a {@linkplain CharSequence} over its current digits, so neighbors can be handed to
+ * string-based code without copying.  Call {@linkplain #toString()} or {@linkplain #toCardNumber()} to keep one.
+ * Instances are not thread-safe.
+ * </p>
+ *
+ * <pre>
+ *   final LuhnMutator mutator = new LuhnMutator("4111111111111111", 6);
+ *
+ *   for (int i = 0; i &lt; 1_000_000; i++) {
+ *       mutator.reset();
+ *       mutator.randomWalk(3);
+ *       fuzz(mutator);
+ *   }
+ * </pre>
+ */
+public class LuhnMutator implements CharSequence {
+
+    private final RandomGenerator random;
+    private final int prefixLength;
+    private final int checkDigitIndex;
+
+    private final byte[] seed;
+    private final int seedSum;
+
+    private final byte[] digits;
+
+    /** Luhn sum of every digit except the check digit */
+    private int sum;
+
+
+    /**
+     * @param seed         A card number which passes Luhn validation
+     * @param prefixLength How many leading digits are never changed.  At least one digit must be left between the
+     *                     prefix and the check digit.
+     */
+    public LuhnMutator(final CharSequence seed, final int prefixLength) {
+        this(seed, prefixLength, null);
+    }
+
+    /**
+     * @param seed         A card number which passes Luhn validation
+     * @param prefixLength How many leading digits are never changed.  At least one digit must be left between the
+     *                     prefix and the check digit.
+     * @param random       The source of randomness for random edits, or {@code null} for {@linkplain ThreadLocalRandom}
+     */
+    public LuhnMutator(final CharSequence seed, final int prefixLength, final RandomGenerator random) {
+        failIf(seed == null || seed.length() == 0, () -> "Seed is null or empty");
+        failIf(prefixLength < 0 || prefixLength > seed.length() - 2,
+            () -> "Prefix length must be between 0 and %d, leaving at least one digit to change".formatted(seed.length() - 2));
+
+        final int result = Luhn.check(seed);
+
+        failIf(result == Luhn.MALFORMED, () -> "Seed contains a non-digit character");
+        failIf(result == Luhn.FAILED, () -> "Seed (%s) doesn't pass Luhn validation".formatted(seed));
+
+        this.random = random;
+        this.prefixLength = prefixLength;
+        this.checkDigitIndex = seed.length() - 1;
+        this.seed = seed.toString().getBytes(StandardCharsets.US_ASCII);
+        this.seedSum = Luhn.sum(this.seed, 0, checkDigitIndex, true);
+        this.digits = this.seed.clone();
+        this.sum = seedSum;
+    }
+
+    /**
+     * @return How many leading digits are never changed
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Restores the seed
+     */
+    public void reset() {
+        System.arraycopy(seed, 0, digits, 0, digits.length);
+        sum = seedSum;
+    }
+
+    /**
+     * Replaces one digit and recomputes the check digit.
+     *
+     * @param index A position between the prefix and the check digit
+     * @param digit 0 through 9
+     */
+    public void setDigit(final int index, final int digit) {
+        failIf(index < prefixLength || index >= checkDigitIndex,
+            () -> "Index must be between %d and %d".formatted(prefixLength, checkDigitIndex - 1));
+        failIf(digit < 0 || digit > 9, () -> "Digit must be between 0 and 9");
+
+        replace(index, digit);
+    }
+
+    /**
+     * Changes one random body digit to a different random digit.  The check digit changes along with it, so the
+     * result always differs from the previous number in exactly two positions.
+     */
+    public void mutate() {
+        final RandomGenerator random = random();
+        final int index = prefixLength + random.nextInt(checkDigitIndex - prefixLength);
+        final int old = digits[index] - '0';
+
+        // One of the nine other digits, each equally likely
+        replace(index, (old + 1 + random.nextInt(9)) % 10);
+    }
+
+    /**
+     * Takes a random walk of {@code steps} single-digit edits from the current number.  A later step may revisit a
+     * position changed by an earlier one.
+     *
+     * @param steps How many edits to make
+     */
+    public void randomWalk(final int steps) {
+        failIf(steps < 0, () -> "Steps must not be negative");
+
+        for (int i = 0; i < steps; i++) {
+            mutate();
+        }
+    }
+
+    /**
+     * Visits every number which differs from the current one in a single body digit, in order of position and then
+     * digit.  {@code action} receives this mutator, set to each neighbor in turn; it's restored to the current
+     * number afterward.
+     *
+     * @param action Receives each neighbor.  It must not modify the mutator.
+     */
+    public void forEachSingleDigitNeighbor(final Consumer<? super CharSequence> action) {
+        failIf(action == null, () -> "Action is null");
+
+        for (int index = prefixLength; index < checkDigitIndex; index++) {
+            final int original = digits[index] - '0';
+
+            for (int digit = 0; digit <= 9; digit++) {
+                if (digit != original) {
+                    replace(index, digit);
+                    action.accept(this);
+                }
+            }
+
+            replace(index, original);
+        }
+    }
+
+    /**
+     * Copies the current digits as ASCII.
+     *
+     * @param dst    The destination
+     * @param offset Where the first digit goes
+     */
+    public void copyTo(final byte[] dst, final int offset) {
+        System.arraycopy(digits, 0, dst, offset, digits.length);
+    }
+
+    /**
+     * @return The current number as a {@linkplain CardNumber}
+     * @throws IllegalArgumentException If the number is longer than {@value Digits#MAX_LENGTH} digits
+     */
+    public CardNumber toCardNumber() {
+        failIf(digits.length > Digits.MAX_LENGTH, () -> "Number is longer than %d digits".formatted(Digits.MAX_LENGTH));
+        return CardNumber.of(Digits.parse(digits, 0, digits.length), digits.length);
+    }
+
+    @Override
+    public int length() {
+        return digits.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return (char) digits[Objects.checkIndex(index, digits.length)];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(digits, StandardCharsets.US_ASCII);
+    }
+
+    private void replace(final int index, final int digit) {
+        sum += contribution(index, digit) - contribution(index, digits[index] - '0');
+        digits[index] = (byte) ('0' + digit);
+        digits[checkDigitIndex] = (byte) ('0' + Luhn.checkDigit(sum));
+    }
+
+    /**
+     * @return What {@code digit} adds to the Luhn sum at {@code index}:  every other digit, starting with the one
+     *         just left of the check digit, is doubled
+     */
+    private int contribution(final int index, final int digit) {
+        return ((checkDigitIndex - index) & 1) == 1 ? Luhn.doubled(digit) : digit;
+    }
+
+    private RandomGenerator random() {
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+}
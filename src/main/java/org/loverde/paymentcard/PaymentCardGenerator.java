@@ -33,9 +33,18 @@
 
 package org.loverde.paymentcard;
 
+import org.loverde.paymentcard.internal.Digits;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
 
 
 public interface PaymentCardGenerator {
@@ -49,6 +58,20 @@ public interface PaymentCardGenerator {
      */
     String generateByCardType(CardType cardType);
 
+    /**
+     * Generates a card number for a given card type, as a {@linkplain CardNumber} rather than a
+     * {@linkplain String}.  The number is built arithmetically, so no text is produced unless the caller
+     * asks the {@linkplain CardNumber} for it.  The prefix and length are randomly selected from the values
+     * defined in {@linkplain CardType}.  The default implementation parses the result of
+     * {@linkplain #generateByCardType(CardType)}.
+     *
+     * @param cardType The type of card number of generate
+     * @return A card number for the specified card type
+     */
+    default CardNumber generateCardNumberByCardType(final CardType cardType) {
+        return CardNumber.of(generateByCardType(cardType));
+    }
+
     /**
      * Generates multiple card numbers for a given card type.  The prefix and length
      * are randomly selected from the values defined in {@linkplain CardType}.
@@ -84,6 +107,86 @@ public interface PaymentCardGenerator {
      */
     Map<Long, List<String>> generateByPrefix(int howManyOfEachPrefix, Set<Integer> lengths, Set<Long> prefixes);
 
+    /**
+     * Generates numbers whose prefixes are drawn from ranges, without expanding the ranges into individual
+     * prefixes.  Every prefix in every range is equally likely to be chosen; a prefix which appears in more than
+     * one range is proportionally more likely.  Like {@linkplain #generateByPrefix(int, Set, Set)}, this method
+     * does not check the prefixes or lengths against the known {@linkplain CardType}s.
+     *
+     * @param howMany How many card numbers to generate in total
+     * @param lengths Generated card numbers will be of lengths specified by this set
+     * @param ranges  Generated card numbers will start with a value from one of these ranges.  Every prefix must
+     *                be positive and leave room for a check digit in the shortest length.
+     * @return The card numbers, in no particular order
+     */
+    default List<String> generateByPrefixRange(final int howMany, final Set<Integer> lengths, final Collection<Range> ranges) {
+        return generateByPrefixRange(howMany, lengths, Range.weighBySize(ranges));
+    }
+
+    /**
+     * Generates numbers whose prefixes are drawn from weighted ranges, without expanding the ranges into
+     * individual prefixes.  A range is chosen with a probability proportional to its weight, then a prefix is
+     * chosen uniformly from within that range.  Like {@linkplain #generateByPrefix(int, Set, Set)}, this method
+     * does not check the prefixes or lengths against the known {@linkplain CardType}s.  The default implementation
+     * chooses each prefix and length itself and generates the number with {@linkplain #generateByPrefix(int, Set, Set)}.
+     *
+     * @param howMany        How many card numbers to generate in total
+     * @param lengths        Generated card numbers will be of lengths specified by this set
+     * @param weightedRanges Generated card numbers will start with a value from one of these ranges, each with a
+     *                       positive weight.  Every prefix must be positive and leave room for a check digit in the
+     *                       shortest length.
+     * @return The card numbers, in no particular order
+     */
+    default List<String> generateByPrefixRange(final int howMany, final Set<Integer> lengths, final Map<Range, Double> weightedRanges) {
+        failIf(howMany <= 0, () -> "How many must be greater than zero");
+        failIf(lengths == null || lengths.isEmpty(), () -> "No lengths were specified");
+        failIf(weightedRanges == null || weightedRanges.isEmpty(), () -> "No ranges were specified");
+
+        for (final Integer length : lengths) {
+            failIf(length == null || length < 2, () -> "Invalid length: " + length);
+        }
+
+        final List<Integer> lengthChoices = new ArrayList<>(lengths);
+        final int shortestLength = Collections.min(lengthChoices);
+        final List<Range> ranges = new ArrayList<>(weightedRanges.size());
+        final double[] cumulativeWeights = new double[weightedRanges.size()];
+        double totalWeight = 0;
+
+        for (final Map.Entry<Range, Double> entry : weightedRanges.entrySet()) {
+            final Range range = entry.getKey();
+            final Double weight = entry.getValue();
+
+            failIf(range == null, () -> "Ranges contains a null");
+            failIf(range.start() < 1, () -> "Range (%s):  prefixes must be positive numbers".formatted(range));
+            failIf(Digits.count(range.end()) >= shortestLength, () -> "Range (%s) leaves no room for a check digit in length (%d)".formatted(range, shortestLength));
+            failIf(weight == null || !(weight > 0) || weight.isInfinite(), () -> "Range (%s):  weight must be a positive number".formatted(range));
+
+            totalWeight += weight;
+            cumulativeWeights[ranges.size()] = totalWeight;
+            ranges.add(range);
+        }
+
+        final RandomGenerator random = ThreadLocalRandom.current();
+        final List<String> cardNums = new ArrayList<>(howMany);
+
+        for (int i = 0; i < howMany; i++) {
+            final double point = random.nextDouble() * totalWeight;
+            int r = 0;
+
+            while (r < ranges.size() - 1 && cumulativeWeights[r] <= point) {
+                r++;
+            }
+
+            final Range range = ranges.get(r);
+            final long prefix = range.start() + random.nextLong(range.size());
+            final Integer length = lengthChoices.get(random.nextInt(lengthChoices.size()));
+
+            cardNums.add(generateByPrefix(1, Collections.singleton(length), Collections.singleton(prefix)).get(prefix).get(0));
+        }
+
+        return cardNums;
+    }
+
     /**
      * Determines whether a number passes Luhn validation
      *
@@ -33,21 +33,26 @@
 
 package org.loverde.paymentcard;
 
+import org.loverde.paymentcard.internal.DigitSource;
+import org.loverde.paymentcard.internal.Digits;
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.loverde.paymentcard.internal.Objects.failIf;
-import static org.loverde.paymentcard.internal.Objects.randomItemFromSet;
 
 
 /**
@@ -80,12 +85,94 @@ import static org.loverde.paymentcard.internal.Objects.randomItemFromSet;
  */
 public class PaymentCardGeneratorImpl implements PaymentCardGenerator {
 
+    /** How many already-issued numbers to generate in a row before giving up on finding an unissued one */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    /** Every card type's prefixes and lengths, indexed by ordinal, so that drawing one doesn't iterate a set */
+    private static final long[][] PREFIXES_BY_CARD_TYPE;
+    private static final int[][] LENGTHS_BY_CARD_TYPE;
+
+    static {
+        final CardType[] cardTypes = CardType.values();
+
+        PREFIXES_BY_CARD_TYPE = new long[cardTypes.length][];
+        LENGTHS_BY_CARD_TYPE = new int[cardTypes.length][];
+
+        for (final CardType cardType : cardTypes) {
+            PREFIXES_BY_CARD_TYPE[cardType.ordinal()] = cardType.getPrefixes().stream().mapToLong(Long::longValue).toArray();
+            LENGTHS_BY_CARD_TYPE[cardType.ordinal()] = cardType.getLengths().stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+    }
+
+    private final RandomGenerator random;
+    private final IssuedNumberLedger ledger;
+
+
+    public PaymentCardGeneratorImpl() {
+        this.random = null;
+        this.ledger = null;
+    }
+
+    /**
+     * Creates a generator which draws from the given source of randomness instead of {@linkplain ThreadLocalRandom}.
+     * Generators constructed with identically seeded sources produce the same numbers in the same order, which makes
+     * generated data reproducible.  The generator is only as thread-safe as {@code random}.
+     *
+     * @param random The source of randomness
+     */
+    public PaymentCardGeneratorImpl(final RandomGenerator random) {
+        failIf(random == null, () -> "Random is null");
+        this.random = random;
+        this.ledger = null;
+    }
+
+    /**
+     * Creates a generator which never returns a number that's recorded in {@code ledger}, and which records every
+     * number it returns.  Numbers are limited to {@value Digits#MAX_LENGTH} digits.  Generation throws
+     * {@linkplain IllegalStateException} if a prefix and length have so few unissued numbers left that
+     * {@value #MAX_ATTEMPTS} attempts in a row turn up nothing but duplicates, and
+     * {@linkplain java.io.UncheckedIOException} if the ledger needs another segment and can't create one.
+     *
+     * @param ledger Numbers which have already been issued
+     */
+    public PaymentCardGeneratorImpl(final IssuedNumberLedger ledger) {
+        failIf(ledger == null, () -> "Ledger is null");
+        this.random = null;
+        this.ledger = ledger;
+    }
+
+    /**
+     * Creates a generator which draws from the given source of randomness and checks every number against a ledger.
+     *
+     * @param random The source of randomness
+     * @param ledger Numbers which have already been issued
+     * @see #PaymentCardGeneratorImpl(RandomGenerator)
+     * @see #PaymentCardGeneratorImpl(IssuedNumberLedger)
+     */
+    public PaymentCardGeneratorImpl(final RandomGenerator random, final IssuedNumberLedger ledger) {
+        failIf(random == null, () -> "Random is null");
+        failIf(ledger == null, () -> "Ledger is null");
+        this.random = random;
+        this.ledger = ledger;
+    }
+
     @Override
     public String generateByCardType(final CardType cardType) {
         failIf(cardType == null, () -> "Card type is null");
         return generateCardNumber(cardType);
     }
 
+    @Override
+    public CardNumber generateCardNumberByCardType(final CardType cardType) {
+        failIf(cardType == null, () -> "Card type is null");
+
+        final RandomGenerator random = random();
+        final long prefix = randomPrefix(cardType, random);
+        final int length = randomLength(cardType, random);
+
+        return CardNumber.of(generateValue(prefix, length), length, cardType);
+    }
+
     @Override
     public List<String> generateListByCardType(final int howMany, final CardType cardType) {
         failIf(howMany <= 0, () -> "How many must be greater than zero");
@@ -112,22 +199,23 @@ public class PaymentCardGeneratorImpl implements PaymentCardGenerator {
         failIf(lengths == null || lengths.isEmpty(), () -> "No lengths were specified");
         failIf(prefixes == null || prefixes.isEmpty(), () -> "No prefixes were specified");
 
-        for (final Integer length : lengths) {
-            failIf(length == null || length < 2, () -> "Invalid length: " + length);
+        final int[] validLengths = validateLengths(lengths);
+        final int shortestLength = validLengths[0];
 
-            for (final Long prefix : prefixes) {
-                failIf(prefix.toString().length() > length, () -> "Prefix (%s) is longer than length (%d)".formatted(prefix.toString(), length));
-                failIf(prefix < 1, () -> "Prefix (%s):  prefixes must be positive numbers".formatted(prefix.toString()));
-            }
+        for (final Long prefix : prefixes) {
+            failIf(prefix == null, () -> "Prefixes contains a null");
+            failIf(Digits.count(prefix) > shortestLength, () -> "Prefix (%d) is longer than length (%d)".formatted(prefix, shortestLength));
+            failIf(prefix < 1, () -> "Prefix (%d):  prefixes must be positive numbers".formatted(prefix));
         }
 
         final Map<Long, List<String>> cardNums = new HashMap<>(prefixes.size());
+        final RandomGenerator random = random();
 
         for (final Long prefix : prefixes) {
             final List<String> cardNumsForPrefix = new ArrayList<>(howManyOfEachPrefix);
 
             for (int i = 0; i < howManyOfEachPrefix; i++) {
-                cardNumsForPrefix.add(generateCardNumber(prefix, randomItemFromSet(lengths)));
+                cardNumsForPrefix.add(generateCardNumber(prefix, validLengths[random.nextInt(validLengths.length)]));
             }
 
             cardNums.put(prefix, cardNumsForPrefix);
@@ -137,67 +225,189 @@ public class PaymentCardGeneratorImpl implements PaymentCardGenerator {
     }
 
     @Override
-    public boolean passesLuhnCheck(final String num) {
-        failIf(num == null || num.isEmpty(), () -> "Number is null or empty");
-
-        final int sum = calculateLuhnSum(num, true);
-        final int checkDigit = calculateCheckDigit(sum);
-
-        return (sum + checkDigit) % 10 == 0 && Integer.parseInt(num.substring(num.length() - 1)) == checkDigit;
+    public List<String> generateByPrefixRange(final int howMany, final Set<Integer> lengths, final Map<Range, Double> weightedRanges) {
+        return generateByPrefixRange(howMany, lengths, weightedRanges, this::generateCardNumber);
     }
 
-    private static String generateCardNumber(final CardType cardType) {
-        return generateCardNumber(
-            randomItemFromSet(cardType.getPrefixes()),
-            randomItemFromSet(cardType.getLengths()));
+    /**
+     * Like {@linkplain #generateByPrefixRange(int, Set, Collection)}, but creates each number as a
+     * {@linkplain CardNumber} directly, without going through a string.
+     *
+     * @param howMany How many card numbers to generate
+     * @param lengths The lengths to choose from, none of them longer than {@value Digits#MAX_LENGTH}
+     * @param ranges  The prefix ranges to choose from, weighted by size
+     * @return The card numbers
+     */
+    public List<CardNumber> generateCardNumbersByPrefixRange(final int howMany, final Set<Integer> lengths, final Collection<Range> ranges) {
+        failIf(lengths != null && lengths.stream().anyMatch(length -> length != null && length > Digits.MAX_LENGTH),
+            () -> "Lengths can't be longer than %d".formatted(Digits.MAX_LENGTH));
+
+        return generateByPrefixRange(howMany, lengths, Range.weighBySize(ranges), (prefix, length) -> CardNumber.of(generateValue(prefix, length), length));
     }
 
-    private static String generateCardNumber(final Long prefix, final int length) {
-        final StringBuilder num = new StringBuilder(prefix.toString());
+    private <T> List<T> generateByPrefixRange(final int howMany, final Set<Integer> lengths, final Map<Range, Double> weightedRanges,
+                                              final NumberFactory<T> factory) {
+        failIf(howMany <= 0, () -> "How many must be greater than zero");
+        failIf(weightedRanges == null || weightedRanges.isEmpty(), () -> "No ranges were specified");
+
+        final int[] validLengths = validateLengths(lengths);
+        final Range[] ranges = new Range[weightedRanges.size()];
+        final double[] cumulativeWeights = new double[ranges.length];
+        double totalWeight = 0;
+        int r = 0;
+
+        for (final Map.Entry<Range, Double> entry : weightedRanges.entrySet()) {
+            final Range range = entry.getKey();
+            final Double weight = entry.getValue();
+
+            failIf(range == null, () -> "Ranges contains a null");
+            failIf(range.start() < 1, () -> "Range (%s):  prefixes must be positive numbers".formatted(range));
+            failIf(Digits.count(range.end()) >= validLengths[0], () -> "Range (%s) leaves no room for a check digit in length (%d)".formatted(range, validLengths[0]));
+            failIf(weight == null || !(weight > 0) || weight.isInfinite(), () -> "Range (%s):  weight must be a positive number".formatted(range));
+
+            totalWeight += weight;
+            ranges[r] = range;
+            cumulativeWeights[r++] = totalWeight;
+        }
 
-        final int howManyMore = length - num.toString().length() - 1;
-        final Random random = ThreadLocalRandom.current();
+        final RandomGenerator random = random();
+        final List<T> cardNums = new ArrayList<>(howMany);
 
-        for (int i = 0; i < howManyMore; i++) {
-            num.append(Integer.valueOf(random.nextInt(9)));
+        for (int i = 0; i < howMany; i++) {
+            final Range range = ranges[pickWeighted(cumulativeWeights, random.nextDouble() * totalWeight)];
+            final long prefix = range.start() + random.nextLong(range.size());
+
+            cardNums.add(factory.create(prefix, validLengths[random.nextInt(validLengths.length)]));
         }
 
-        num.append(calculateCheckDigit(num.toString()));
+        return cardNums;
+    }
+
+    @Override
+    public boolean passesLuhnCheck(final String num) {
+        failIf(num == null || num.isEmpty(), () -> "Number is null or empty");
+
+        final int result = Luhn.check(num);
+        failIf(result == Luhn.MALFORMED, () -> "Number contains a non-digit character");
+
+        return result == Luhn.PASSED;
+    }
+
+    private String generateCardNumber(final CardType cardType) {
+        final RandomGenerator random = random();
+        return generateCardNumber(randomPrefix(cardType, random), randomLength(cardType, random));
+    }
 
-        return num.toString();
+    /**
+     * @return The source of randomness which this generator draws from
+     */
+    RandomGenerator random() {
+        return random != null ? random : ThreadLocalRandom.current();
     }
 
-    private static int calculateCheckDigit(final String str) {
-        final int sum = calculateLuhnSum(str, false);
-        return calculateCheckDigit(sum);
+    static long randomPrefix(final CardType cardType, final RandomGenerator random) {
+        final long[] prefixes = PREFIXES_BY_CARD_TYPE[cardType.ordinal()];
+        return prefixes.length == 1 ? prefixes[0] : prefixes[random.nextInt(prefixes.length)];
     }
 
-    private static int calculateCheckDigit(final int luhnSum) {
-        return (luhnSum * 9) % 10;
+    static int randomLength(final CardType cardType, final RandomGenerator random) {
+        final int[] lengths = LENGTHS_BY_CARD_TYPE[cardType.ordinal()];
+        return lengths.length == 1 ? lengths[0] : lengths[random.nextInt(lengths.length)];
     }
 
-    private static int calculateLuhnSum(final String str, final boolean hasCheckDigit) {
-        final int[] luhnNums = new int[str.length()];
-        final int start = str.length() - (hasCheckDigit ? 2 : 1);
-        int sum = 0;
+    /**
+     * @return The lengths, sorted in ascending order
+     */
+    private static int[] validateLengths(final Set<Integer> lengths) {
+        failIf(lengths == null || lengths.isEmpty(), () -> "No lengths were specified");
 
-        boolean doubleMe = true;
+        for (final Integer length : lengths) {
+            failIf(length == null || length < 2, () -> "Invalid length: " + length);
+        }
 
-        for (int i = start; i >= 0; i--) {
-            final int num = Integer.parseInt(str.substring(i, i + 1));
+        return lengths.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * @return The index of the first cumulative weight which exceeds {@code point}
+     */
+    private static int pickWeighted(final double[] cumulativeWeights, final double point) {
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
 
-            if (doubleMe) {
-                int x2 = num * 2;
-                luhnNums[i] = x2 > 9 ? x2 - 9 : x2;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (cumulativeWeights[mid] > point) {
+                high = mid;
             } else {
-                luhnNums[i] = num;
+                low = mid + 1;
             }
+        }
 
-            sum += luhnNums[i];
-            doubleMe = !doubleMe;
+        return low;
+    }
+
+    private String generateCardNumber(final long prefix, final int length) {
+        final int prefixLength = Digits.count(prefix);
+        final byte[] num = new byte[Math.max(length, prefixLength + 1)];
+        final int checkDigitIndex = num.length - 1;
+        final RandomGenerator random = random();
+
+        failIf(ledger != null && num.length > Digits.MAX_LENGTH, () -> "Length (%d) is too long to record in a ledger".formatted(num.length));
+
+        Digits.toAscii(prefix, num, 0, prefixLength);
+
+        int attempts = 0;
+
+        do {
+            attempts++;
+
+            DigitSource.fill(random, num, prefixLength, checkDigitIndex);
+
+            num[checkDigitIndex] = (byte) ('0' + Luhn.checkDigit(Luhn.sum(num, 0, checkDigitIndex, true)));
+        } while (ledger != null && !markIssued(Digits.parse(num, 0, num.length), prefix, num.length, attempts));
+
+        return new String(num, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Generates a number as an unsigned value, without creating any objects.
+     *
+     * @param prefix A prefix which leaves room for at least a check digit
+     * @param length The length of the number, at most {@value Digits#MAX_LENGTH}
+     * @return The digits of the number
+     */
+    long generateValue(final long prefix, final int length) {
+        final int howManyMore = length - Digits.count(prefix) - 1;
+        final RandomGenerator random = random();
+
+        long value;
+        int attempts = 0;
+
+        do {
+            attempts++;
+            value = DigitSource.append(random, prefix, howManyMore);
+            value = value * 10 + Luhn.checkDigit(Luhn.sum(value, length - 1, false));
+        } while (!markIssued(value, prefix, length, attempts));
+
+        return value;
+    }
+
+    /**
+     * @return {@code true} if the number was newly recorded in the ledger, {@code false} if it's a duplicate
+     * @throws IllegalStateException If this was the last attempt
+     */
+    private boolean markIssued(final long value, final long prefix, final int length, final int attempts) {
+        if (ledger == null || ledger.markIssued(value)) {
+            return true;
         }
 
-        return sum;
+        if (attempts >= MAX_ATTEMPTS) {
+            throw new IllegalStateException("No unissued number with prefix %d and length %d was found in %d attempts".formatted(prefix, length, attempts));
+        }
+
+        return false;
     }
 
     @SafeVarargs
@@ -207,4 +417,9 @@ public class PaymentCardGeneratorImpl implements PaymentCardGenerator {
             .filter(Objects::nonNull)
             .collect(Collectors.toSet());
     }
+
+    @FunctionalInterface
+    private interface NumberFactory<T> {
+        T create(long prefix, int length);
+    }
 }
@@ -33,6 +33,9 @@
 
 package org.loverde.paymentcard;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.loverde.paymentcard.internal.Objects.failIf;
 
@@ -46,4 +49,21 @@ public record Range (long start, long end) {
     public long size() {
         return Math.abs(end() - start()) + 1;
     }
+
+    /**
+     * @return The ranges, each weighted by its size, so that every prefix is equally likely.  A range given more
+     *         than once is weighted accordingly.
+     */
+    static Map<Range, Double> weighBySize(final Collection<Range> ranges) {
+        failIf(ranges == null || ranges.isEmpty(), () -> "No ranges were specified");
+
+        final Map<Range, Double> weightedRanges = new LinkedHashMap<>(ranges.size());
+
+        for (final Range range : ranges) {
+            failIf(range == null, () -> "Ranges contains a null");
+            weightedRanges.merge(range, (double) range.size(), Double::sum);
+        }
+
+        return weightedRanges;
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.loverde.paymentcard.internal.Luhn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * <p>
+ * Validates newline-delimited numbers as raw bytes arrive, without turning each line into a
+ * {@linkplain String}.  Bytes can be pushed in chunks of any size; a record which straddles two chunks is carried
+ * over in a few fields of state, so memory use doesn't depend on the size of the input or the length of a line.
+ * </p>
+ *
+ * <p>
+ * Lines end with {@code \n} or {@code \r\n}.  An empty line, or a line containing anything but ASCII digits, is
+ * reported as {@linkplain LuhnResult#MALFORMED}.  Call {@linkplain #finish()} once the input is exhausted, to report
+ * a last line which has no line ending.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe; use one per stream.
+ * </p>
+ */
+public class StreamingLuhnValidator {
+
+    /**
+     * Receives the result of each record as soon as its line ending is seen.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param recordIndex Zero-based line number
+         * @param result      The outcome
+         */
+        void onRecord(long recordIndex, LuhnResult result);
+    }
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    /** Sums are reduced modulo 10 this often, so that they can't overflow on a pathologically long line */
+    private static final int REDUCE_MASK = (1 << 24) - 1;
+
+    private final Listener listener;
+
+    // State of the current record.  Since it isn't known yet which digit is the check digit, two sums are kept:
+    // one as though the latest digit is the check digit, and one as though it's the first doubled digit.
+    private int sumIfCheckDigit;
+    private int sumIfDoubled;
+    private int length;
+    private boolean malformed;
+    private boolean pendingCarriageReturn;
+
+    private long recordIndex;
+    private long passed;
+    private long failed;
+    private long malformedCount;
+
+
+    /**
+     * Creates a validator which only keeps counts
+     */
+    public StreamingLuhnValidator() {
+        this((recordIndex, result) -> { });
+    }
+
+    /**
+     * @param listener Receives the result of each record
+     */
+    public StreamingLuhnValidator(final Listener listener) {
+        failIf(listener == null, () -> "Listener is null");
+        this.listener = listener;
+    }
+
+    /**
+     * Pushes the next chunk of input.
+     *
+     * @param chunk  The bytes
+     * @param offset Where to start reading in {@code chunk}
+     * @param length How many bytes to read
+     */
+    public void accept(final byte[] chunk, final int offset, final int length) {
+        failIf(chunk == null, () -> "Chunk is null");
+        failIf(offset < 0 || length < 0 || offset + length > chunk.length, () -> "Offset and length are out of bounds");
+
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(chunk[i]);
+        }
+    }
+
+    /**
+     * Pushes the next chunk of input.  The buffer's remaining bytes are consumed.
+     *
+     * @param chunk The bytes
+     */
+    public void accept(final ByteBuffer chunk) {
+        failIf(chunk == null, () -> "Chunk is null");
+
+        if (chunk.hasArray()) {
+            accept(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        } else {
+            for (int i = chunk.position(), end = chunk.limit(); i < end; i++) {
+                accept(chunk.get(i));
+            }
+        }
+
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * Reports the last record, if the input didn't end with a line ending
+     */
+    public void finish() {
+        if (length > 0 || malformed || pendingCarriageReturn) {
+            endRecord();
+        }
+    }
+
+    /**
+     * Reads a stream to the end, validating every line.  The stream is not closed.
+     *
+     * @param in The input
+     * @return Tallies of everything this validator has seen
+     * @throws IOException If the stream can't be read
+     */
+    public LuhnCounts validate(final InputStream in) throws IOException {
+        failIf(in == null, () -> "Input stream is null");
+
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+
+        while ((read = in.read(buffer)) >= 0) {
+            accept(buffer, 0, read);
+        }
+
+        finish();
+
+        return getCounts();
+    }
+
+    /**
+     * Reads a channel to the end, validating every line.  The channel is not closed.
+     *
+     * @param in The input
+     * @return Tallies of everything this validator has seen
+     * @throws IOException If the channel can't be read
+     */
+    public LuhnCounts validate(final ReadableByteChannel in) throws IOException {
+        failIf(in == null, () -> "Channel is null");
+
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        while (in.read(buffer) >= 0) {
+            buffer.flip();
+            accept(buffer);
+            buffer.clear();
+        }
+
+        finish();
+
+        return getCounts();
+    }
+
+    /**
+     * @return Tallies of the records reported so far
+     */
+    public LuhnCounts getCounts() {
+        return new LuhnCounts(passed, failed, malformedCount);
+    }
+
+    private void accept(final byte b) {
+        if (b == '\n') {
+            pendingCarriageReturn = false;
+            endRecord();
+            return;
+        }
+
+        if (pendingCarriageReturn) {
+            // A carriage return which isn't part of a line ending
+            malformed = true;
+            pendingCarriageReturn = false;
+        }
+
+        final int digit = b - '0';
+
+        if (digit >= 0 && digit <= 9) {
+            final int previousIfCheckDigit = sumIfCheckDigit;
+
+            sumIfCheckDigit = sumIfDoubled + digit;
+            sumIfDoubled = previousIfCheckDigit + Luhn.doubled(digit);
+
+            if ((++length & REDUCE_MASK) == 0) {
+                sumIfCheckDigit %= 10;
+                sumIfDoubled %= 10;
+            }
+        } else if (b == '\r') {
+            pendingCarriageReturn = true;
+        } else {
+            malformed = true;
+        }
+    }
+
+    private void endRecord() {
+        final LuhnResult result;
+
+        if (malformed || pendingCarriageReturn || length == 0) {
+            result = LuhnResult.MALFORMED;
+            malformedCount++;
+        } else if (sumIfCheckDigit % 10 == 0) {
+            result = LuhnResult.PASSED;
+            passed++;
+        } else {
+            result = LuhnResult.FAILED;
+            failed++;
+        }
+
+        listener.onRecord(recordIndex++, result);
+
+        sumIfCheckDigit = 0;
+        sumIfDoubled = 0;
+        length = 0;
+        malformed = false;
+        pendingCarriageReturn = false;
+    }
+}
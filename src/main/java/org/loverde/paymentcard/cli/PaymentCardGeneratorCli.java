@@ -0,0 +1,528 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard.cli;
+
+import org.loverde.paymentcard.CardNumber;
+import org.loverde.paymentcard.CardNumberFileWriter;
+import org.loverde.paymentcard.CardType;
+import org.loverde.paymentcard.PaymentCardGeneratorImpl;
+import org.loverde.paymentcard.Range;
+import org.loverde.paymentcard.internal.Digits;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * <p>
+ * Command-line entry point which generates card numbers across all cores and streams them to standard output or a
+ * file, so that shell pipelines can produce test data without writing a Java harness.  Run with {@code --help} for
+ * the options.
+ * </p>
+ *
+ * <p>
+ * The work is split into fixed-size blocks which worker threads generate concurrently, and which are written in
+ * order.  When a seed is given, each block draws from its own generator seeded from the seed and the block's
+ * position, so the output is identical regardless of how many threads produce it.  Progress - numbers per second
+ * and bytes per second - is reported periodically on standard error.
+ * </p>
+ */
+public final class PaymentCardGeneratorCli {
+
+    /** How many numbers a worker generates at a time */
+    static final int BLOCK_SIZE = 1 << 14;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+    private static final byte[] NOTHING = new byte[0];
+
+    private static final String USAGE = """
+        Usage: paymentcardgenerator --count N [options]
+
+          -n, --count N              How many numbers to generate
+          -t, --types TYPE,...       Card types to draw from, with equal probability (default: all)
+                                     %s
+          -r, --ranges START-END,... Prefix ranges to draw from instead of card types, weighted by size
+          -l, --lengths N,...        Lengths of the numbers; required with --ranges, not allowed with --types
+          -s, --seed N               Seed, for reproducible output
+          -j, --threads N            Worker threads (default: available processors)
+          -f, --format FORMAT        text:    one number per line (default)
+                                     csv:     number and card type, with a header row
+                                     binary:  the CardNumberFileWriter fixture format; requires --output
+          -o, --output FILE          Where to write (default: standard output)
+          -i, --report-interval SEC  Seconds between progress reports on standard error; 0 disables (default: 1)
+          -h, --help                 Show this message
+        """.formatted(Arrays.toString(CardType.values()));
+
+    private PaymentCardGeneratorCli() {
+    }
+
+    public static void main(final String[] args) {
+        // Writing to the file descriptor directly skips PrintStream's per-call locking and flushing
+        System.exit(run(args, new FileOutputStream(FileDescriptor.out), System.err));
+    }
+
+    /**
+     * @param args   Command-line arguments
+     * @param stdout Where output goes when no file is given
+     * @param stderr Where progress, usage and errors go
+     * @return The process exit status:  0 on success, 1 if generation failed, 2 if the arguments are invalid
+     */
+    static int run(final String[] args, final OutputStream stdout, final PrintStream stderr) {
+        final Options options;
+
+        try {
+            options = Options.parse(args);
+        } catch (final IllegalArgumentException e) {
+            stderr.println("Error:  " + e.getMessage());
+            stderr.println();
+            stderr.print(USAGE);
+            return 2;
+        }
+
+        if (options.help) {
+            stderr.print(USAGE);
+            return 0;
+        }
+
+        try {
+            generate(options, stdout, stderr);
+            return 0;
+        } catch (final IOException | RuntimeException e) {
+            stderr.println("Error:  " + e.getMessage());
+            return 1;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stderr.println("Interrupted");
+            return 1;
+        }
+    }
+
+    private static void generate(final Options options, final OutputStream stdout, final PrintStream stderr) throws IOException, InterruptedException {
+        final long blockCount = (options.count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final Progress progress = new Progress();
+        final ExecutorService workers = Executors.newFixedThreadPool(options.threads, daemonThreads("generator"));
+        final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemonThreads("reporter"));
+
+        if (options.reportIntervalSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> stderr.println(progress.report()),
+                options.reportIntervalSeconds, options.reportIntervalSeconds, TimeUnit.SECONDS);
+        }
+
+        try (final BlockWriter out = openOutput(options, stdout)) {
+            // A window of blocks in flight keeps every worker busy while the blocks are written in order
+            final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+            final int window = options.threads * 2;
+            long nextBlock = 0;
+
+            for (long written = 0; written < blockCount; written++) {
+                while (nextBlock < blockCount && pending.size() < window) {
+                    final long index = nextBlock++;
+                    pending.add(workers.submit(() -> generateBlock(options, index)));
+                }
+
+                final Block block = pending.remove().get();
+
+                progress.bytes.addAndGet(out.write(block));
+                progress.numbers.addAndGet(block.numbers.size());
+            }
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        if (options.reportIntervalSeconds > 0) {
+            stderr.println(progress.report());
+        }
+    }
+
+    private static Block generateBlock(final Options options, final long index) {
+        final int size = (int) Math.min(BLOCK_SIZE, options.count - index * BLOCK_SIZE);
+        final RandomGenerator random = options.seed == null ? ThreadLocalRandom.current() : new SplittableRandom(blockSeed(options.seed, index));
+        final PaymentCardGeneratorImpl generator = options.seed == null ? new PaymentCardGeneratorImpl() : new PaymentCardGeneratorImpl(random);
+        final List<CardNumber> numbers;
+
+        if (options.ranges != null) {
+            numbers = generator.generateCardNumbersByPrefixRange(size, options.lengths, options.ranges);
+        } else {
+            final CardType[] cardTypes = options.cardTypes;
+
+            numbers = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                numbers.add(generator.generateCardNumberByCardType(cardTypes[cardTypes.length == 1 ? 0 : random.nextInt(cardTypes.length)]));
+            }
+        }
+
+        return new Block(numbers, options.format.encode(numbers));
+    }
+
+    /**
+     * Spreads the seed across blocks, so that neighbouring blocks don't start from neighbouring states
+     */
+    static long blockSeed(final long seed, final long blockIndex) {
+        long h = seed + (blockIndex + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static BlockWriter openOutput(final Options options, final OutputStream stdout) throws IOException {
+        if (options.format == Format.BINARY) {
+            final CardNumberFileWriter writer = new CardNumberFileWriter(options.output);
+
+            return new BlockWriter() {
+                @Override
+                public long write(final Block block) throws IOException {
+                    for (final CardNumber num : block.numbers) {
+                        writer.write(num);
+                    }
+
+                    return (long) block.numbers.size() * CardNumberFileWriter.RECORD_SIZE;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+
+        final OutputStream out = new BufferedOutputStream(options.output == null ? stdout : Files.newOutputStream(options.output), OUTPUT_BUFFER_SIZE);
+        final byte[] header = options.format.header();
+
+        out.write(header);
+
+        return new BlockWriter() {
+            @Override
+            public long write(final Block block) throws IOException {
+                out.write(block.encoded);
+                return block.encoded.length;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (options.output == null) {
+                    out.flush();
+                } else {
+                    out.close();
+                }
+            }
+        };
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicLong count = new AtomicLong();
+
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "%s-%d".formatted(name, count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Block(List<CardNumber> numbers, byte[] encoded) {
+    }
+
+    private interface BlockWriter extends Closeable {
+        /**
+         * @return How many bytes were written
+         */
+        long write(Block block) throws IOException;
+    }
+
+    private enum Format {
+        TEXT {
+            @Override
+            byte[] encode(final List<CardNumber> numbers) {
+                int size = 0;
+
+                for (final CardNumber num : numbers) {
+                    size += num.length() + 1;
+                }
+
+                final byte[] encoded = new byte[size];
+                int position = 0;
+
+                for (final CardNumber num : numbers) {
+                    position = putDigits(num, encoded, position);
+                    encoded[position++] = '\n';
+                }
+
+                return encoded;
+            }
+        },
+
+        CSV {
+            @Override
+            byte[] header() {
+                return "number,card_type\n".getBytes(StandardCharsets.US_ASCII);
+            }
+
+            @Override
+            byte[] encode(final List<CardNumber> numbers) {
+                int size = 0;
+
+                for (final CardNumber num : numbers) {
+                    size += num.length() + 2 + (num.getCardType() == null ? 0 : num.getCardType().name().length());
+                }
+
+                final byte[] encoded = new byte[size];
+                int position = 0;
+
+                for (final CardNumber num : numbers) {
+                    position = putDigits(num, encoded, position);
+                    encoded[position++] = ',';
+
+                    if (num.getCardType() != null) {
+                        position = putAscii(num.getCardType().name(), encoded, position);
+                    }
+
+                    encoded[position++] = '\n';
+                }
+
+                return encoded;
+            }
+        },
+
+        BINARY {
+            @Override
+            byte[] encode(final List<CardNumber> numbers) {
+                // CardNumberFileWriter encodes the numbers itself
+                return NOTHING;
+            }
+        };
+
+        byte[] header() {
+            return NOTHING;
+        }
+
+        abstract byte[] encode(List<CardNumber> numbers);
+
+        private static int putDigits(final CardNumber num, final byte[] dst, final int position) {
+            Digits.toAscii(num.getValue(), dst, position, position + num.length());
+            return position + num.length();
+        }
+
+        private static int putAscii(final CharSequence chars, final byte[] dst, final int position) {
+            final int length = chars.length();
+
+            for (int i = 0; i < length; i++) {
+                dst[position + i] = (byte) chars.charAt(i);
+            }
+
+            return position + length;
+        }
+    }
+
+    private static final class Progress {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong numbers = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        String report() {
+            final double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+            final long n = numbers.get();
+            final long b = bytes.get();
+
+            return String.format(Locale.ROOT, "%,d numbers in %.1fs  (%,.0f numbers/s, %.1f MB/s)", n, seconds, n / seconds, b / seconds / (1024 * 1024));
+        }
+    }
+
+    private static final class Options {
+        private long count = -1;
+        private CardType[] cardTypes = CardType.values();
+        private boolean typesGiven;
+        private List<Range> ranges;
+        private Set<Integer> lengths;
+        private Long seed;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Format format = Format.TEXT;
+        private Path output;
+        private int reportIntervalSeconds = 1;
+        private boolean help;
+
+        static Options parse(final String[] args) {
+            final Options options = new Options();
+
+            for (int i = 0; i < args.length; i++) {
+                final String arg = args[i];
+
+                if (arg.equals("-h") || arg.equals("--help")) {
+                    options.help = true;
+                    return options;
+                }
+
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Unknown option or missing value:  " + arg);
+                }
+
+                final String value = args[++i];
+
+                switch (arg) {
+                    case "-n", "--count" -> options.count = parseLong(arg, value, 1, Long.MAX_VALUE);
+                    case "-t", "--types" -> {
+                        options.cardTypes = parseCardTypes(value);
+                        options.typesGiven = true;
+                    }
+                    case "-r", "--ranges" -> options.ranges = parseRanges(value);
+                    case "-l", "--lengths" -> options.lengths = parseLengths(value);
+                    case "-s", "--seed" -> options.seed = parseLong(arg, value, Long.MIN_VALUE, Long.MAX_VALUE);
+                    case "-j", "--threads" -> options.threads = (int) parseLong(arg, value, 1, 1024);
+                    case "-f", "--format" -> options.format = parseFormat(value);
+                    case "-o", "--output" -> options.output = Path.of(value);
+                    case "-i", "--report-interval" -> options.reportIntervalSeconds = (int) parseLong(arg, value, 0, 3600);
+                    default -> throw new IllegalArgumentException("Unknown option:  " + arg);
+                }
+            }
+
+            if (options.count < 0) {
+                throw new IllegalArgumentException("--count is required");
+            }
+
+            if (options.ranges != null && options.typesGiven) {
+                throw new IllegalArgumentException("--types and --ranges can't be combined");
+            }
+
+            if (options.ranges != null && options.lengths == null) {
+                throw new IllegalArgumentException("--lengths is required with --ranges");
+            }
+
+            if (options.ranges == null && options.lengths != null) {
+                throw new IllegalArgumentException("--lengths can only be used with --ranges; card types have their own lengths");
+            }
+
+            if (options.format == Format.BINARY && options.output == null) {
+                throw new IllegalArgumentException("The binary format requires --output");
+            }
+
+            return options;
+        }
+
+        private static long parseLong(final String option, final String value, final long min, final long max) {
+            final long parsed;
+
+            try {
+                parsed = Long.parseLong(value);
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("%s:  not a number:  %s".formatted(option, value));
+            }
+
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("%s must be between %d and %d".formatted(option, min, max));
+            }
+
+            return parsed;
+        }
+
+        private static CardType[] parseCardTypes(final String value) {
+            final Set<CardType> cardTypes = new LinkedHashSet<>();
+
+            for (final String name : value.split(",")) {
+                try {
+                    cardTypes.add(CardType.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (final IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown card type:  " + name);
+                }
+            }
+
+            return cardTypes.toArray(new CardType[0]);
+        }
+
+        private static List<Range> parseRanges(final String value) {
+            final List<Range> ranges = new ArrayList<>();
+
+            for (final String range : value.split(",")) {
+                final String[] bounds = range.trim().split("-", -1);
+
+                if (bounds.length > 2) {
+                    throw new IllegalArgumentException("Invalid range:  " + range);
+                }
+
+                final long start = parseLong("--ranges", bounds[0], 1, Long.MAX_VALUE);
+                final long end = bounds.length == 1 ? start : parseLong("--ranges", bounds[1], 1, Long.MAX_VALUE);
+
+                ranges.add(new Range(start, end));
+            }
+
+            return ranges;
+        }
+
+        private static Set<Integer> parseLengths(final String value) {
+            final Set<Integer> lengths = new LinkedHashSet<>();
+
+            for (final String length : value.split(",")) {
+                // CardNumber holds at most 19 digits
+                lengths.add((int) parseLong("--lengths", length.trim(), 2, 19));
+            }
+
+            return lengths;
+        }
+
+        private static Format parseFormat(final String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown format:  " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.loverde.paymentcard.internal;
+
+import java.util.random.RandomGenerator;
+
+
+/**
+ * <p>
+ * Draws uniformly distributed decimal digits, up to {@value #DIGITS_PER_DRAW} of them from a single 64-bit output
+ * of the random number generator rather than one output per digit.
+ * </p>
+ *
+ * <p>
+ * A draw takes the top 63 bits of {@linkplain RandomGenerator#nextLong()}, a value below 2<sup>63</sup>, and keeps it
+ * only if it's below 9 &times; 10<sup>18</sup>, the largest multiple of 10<sup>18</sup> which fits.  An accepted value
+ * modulo 10<sup>18</sup> is then uniform across all 18-digit strings, so every digit is independent and unbiased.
+ * About 2.4% of draws are rejected and redrawn.
+ * </p>
+ */
+public class DigitSource {
+
+    /** How many digits a single draw yields */
+    public static final int DIGITS_PER_DRAW = 18;
+
+    private static final long DRAW_RANGE = 1_000_000_000_000_000_000L;
+    private static final long ACCEPT_BELOW = 9 * DRAW_RANGE;
+    private static final int HALF_RANGE = 1_000_000_000;
+
+
+    /**
+     * @param random The source of randomness
+     * @return {@value #DIGITS_PER_DRAW} uniformly random digits, as a value below 10<sup>18</sup>
+     */
+    public static long draw(final RandomGenerator random) {
+        long bits;
+
+        do {
+            bits = random.nextLong() >>> 1;
+        } while (bits >= ACCEPT_BELOW);
+
+        return bits % DRAW_RANGE;
+    }
+
+    /**
+     * Appends random digits to a number.
+     * @param random The source of randomness
+     * @param value The digits so far.  The result must fit in an unsigned {@code long}.
+     * @param howMany How many digits to append, 0 through {@value #DIGITS_PER_DRAW}
+     * @return {@code value} followed by {@code howMany} random digits
+     */
+    public static long append(final RandomGenerator random, final long value, final int howMany) {
+        if (howMany == 0) {
+            return value;
+        }
+
+        // 10^howMany divides 10^18, so the low digits of a draw are as uniform as the whole draw
+        final long scale = Digits.powerOfTen(howMany);
+
+        return value * scale + draw(random) % scale;
+    }
+
+    /**
+     * Writes random ASCII digits into a byte array.
+     * @param random The source of randomness
+     * @param dst The destination
+     * @param from Index of the first digit, inclusive
+     * @param to Index just past the last digit
+     */
+    public static void fill(final RandomGenerator random, final byte[] dst, final int from, final int to) {
+        int i = from;
+
+        for (; i + DIGITS_PER_DRAW <= to; i += DIGITS_PER_DRAW) {
+            final long digits = draw(random);
+
+            // Two 9-digit halves convert with int arithmetic, which is cheaper than long division
+            toAscii((int) (digits / HALF_RANGE), dst, i, 9);
+            toAscii((int) (digits % HALF_RANGE), dst, i + 9, 9);
+        }
+
+        final int remaining = to - i;
+
+        if (remaining > 0) {
+            final long digits = draw(random);
+
+            if (remaining > 9) {
+                toAscii((int) (digits / HALF_RANGE % Digits.powerOfTen(remaining - 9)), dst, i, remaining - 9);
+                toAscii((int) (digits % HALF_RANGE), dst, i + remaining - 9, 9);
+            } else {
+                toAscii((int) (digits % Digits.powerOfTen(remaining)), dst, i, remaining);
+            }
+        }
+    }
+
+    private static void toAscii(final int value, final byte[] dst, final int from, final int howMany) {
+        int remaining = value;
+
+        for (int i = from + howMany - 1; i >= from; i--) {
+            dst[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.loverde.paymentcard.internal;
+
+
+/**
+ * Arithmetic helpers for numbers of up to {@value #MAX_LENGTH} decimal digits.  A 19-digit number
+ * doesn't always fit into a signed {@code long}, so values are treated as unsigned throughout.
+ */
+public class Digits {
+
+    /** The most digits a card number can have */
+    public static final int MAX_LENGTH = 19;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_LENGTH + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * @param exponent 0 through {@value #MAX_LENGTH}
+     * @return 10 raised to {@code exponent}, as an unsigned value
+     */
+    public static long powerOfTen(final int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Counts the digits of an unsigned value without converting it to a string.
+     * @param value An unsigned value
+     * @return The number of decimal digits in {@code value}; zero has one digit
+     */
+    public static int count(final long value) {
+        int digits = 1;
+
+        while (digits < POWERS_OF_TEN.length && Long.compareUnsigned(value, POWERS_OF_TEN[digits]) >= 0) {
+            digits++;
+        }
+
+        return digits;
+    }
+
+    /**
+     * Returns a single digit of a number, counting from the left.
+     * @param value An unsigned value
+     * @param length How many digits {@code value} is considered to have, including leading zeros
+     * @param index Zero-based position from the left
+     * @return The digit at {@code index}
+     */
+    public static int digitAt(final long value, final int length, final int index) {
+        return (int) Long.remainderUnsigned(Long.divideUnsigned(value, POWERS_OF_TEN[length - 1 - index]), 10);
+    }
+
+    /**
+     * Returns the leftmost digits of a number.
+     * @param value An unsigned value
+     * @param length How many digits {@code value} is considered to have, including leading zeros
+     * @param howMany How many leading digits to return
+     * @return The leading digits as a number
+     */
+    public static long leading(final long value, final int length, final int howMany) {
+        return Long.divideUnsigned(value, POWERS_OF_TEN[length - howMany]);
+    }
+
+    /**
+     * Parses a run of decimal digits into an unsigned value.
+     * @param str The characters to parse
+     * @param from Index of the first character, inclusive
+     * @param to Index of the last character, exclusive
+     * @return The parsed value, or -1 if a character isn't a digit or there are more than {@value #MAX_LENGTH} of them.
+     *         -1 can't be confused with a parsed value, since it's larger than any 19-digit number.
+     */
+    public static long parse(final CharSequence str, final int from, final int to) {
+        if (to - from > MAX_LENGTH) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = from; i < to; i++) {
+            final int digit = str.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses a run of ASCII digits into an unsigned value.
+     * @param data The bytes to parse
+     * @param from Index of the first digit, inclusive
+     * @param to Index just past the last digit
+     * @return The parsed value, or -1 if a byte isn't a digit or there are more than {@value #MAX_LENGTH} of them
+     */
+    public static long parse(final byte[] data, final int from, final int to) {
+        if (to - from > MAX_LENGTH) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = from; i < to; i++) {
+            final int digit = data[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes the digits of a number as ASCII, right-aligned and padded with leading zeros.
+     * @param value An unsigned value
+     * @param dst The destination
+     * @param from Index of the leftmost digit, inclusive
+     * @param to Index just past the rightmost digit
+     */
+    public static void toAscii(final long value, final byte[] dst, final int from, final int to) {
+        long remaining = value;
+
+        for (int i = to - 1; i >= from; i--) {
+            dst[i] = (byte) ('0' + Long.remainderUnsigned(remaining, 10));
+            remaining = Long.divideUnsigned(remaining, 10);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.loverde.paymentcard.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+
+/**
+ * <p>
+ * Luhn arithmetic shared by the generator and the value types.
+ * </p>
+ *
+ * <p>
+ * Numbers held as ASCII bytes and at least {@value #SWAR_MIN_LENGTH} digits long, which covers every card length in
+ * use, are summed eight digits at a time:  eight digits are read as a single {@code long}, validated and converted
+ * with a handful of word-wide operations, the doubled positions are selected with a mask, and the eight partial
+ * results are added with a single multiplication.  Shorter numbers and the digits left over after the last full
+ * block of eight go through the scalar loop.
+ * </p>
+ */
+public class Luhn {
+
+    /** Result of {@linkplain #check(CharSequence)}:  the number passes Luhn validation */
+    public static final int PASSED = 1;
+
+    /** Result of {@linkplain #check(CharSequence)}:  the number fails Luhn validation */
+    public static final int FAILED = 0;
+
+    /** Result of {@linkplain #check(CharSequence)}:  the input is null, empty or contains a non-digit */
+    public static final int MALFORMED = -1;
+
+    /** Numbers shorter than this are summed by the scalar loop */
+    static final int SWAR_MIN_LENGTH = 8;
+
+    /** Lookup table for a digit in a doubled position:  the digit times two, minus nine if that exceeds nine */
+    private static final int[] DOUBLED = { 0, 2, 4, 6, 8, 1, 3, 5, 7, 9 };
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long ASCII_ZEROS = 0x30 * ONES;
+    private static final long HIGH_NIBBLES = 0xF0 * ONES;
+
+    /** Selects the even-numbered bytes of a block, counting from the leftmost digit */
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+
+    /** Selects the odd-numbered bytes of a block, counting from the leftmost digit */
+    private static final long ODD_BYTES = ~EVEN_BYTES;
+
+
+    /**
+     * Calculates the Luhn sum of a number held in a {@code long}.
+     * @param value An unsigned value
+     * @param length How many digits {@code value} is considered to have, including leading zeros
+     * @param hasCheckDigit Whether the rightmost digit is a check digit, which is excluded from the sum
+     * @return The Luhn sum
+     */
+    public static int sum(final long value, final int length, final boolean hasCheckDigit) {
+        long remaining = value;
+        int digits = length;
+
+        if (hasCheckDigit) {
+            remaining = Long.divideUnsigned(remaining, 10);
+            digits--;
+        }
+
+        int sum = 0;
+        boolean doubleMe = true;
+
+        for (int i = 0; i < digits; i++) {
+            final int digit = (int) Long.remainderUnsigned(remaining, 10);
+            remaining = Long.divideUnsigned(remaining, 10);
+
+            sum += doubleMe ? DOUBLED[digit] : digit;
+            doubleMe = !doubleMe;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Calculates the Luhn sum of a run of digits, one digit at a time.  Packing characters into a {@code long}
+     * costs more than it saves, so only byte sources take the eight-at-a-time path.
+     * @param num The characters to sum
+     * @param from Index of the first digit, inclusive
+     * @param to Index just past the last digit
+     * @param doubleRightmost {@code true} if the rightmost digit is doubled, as it is when calculating a check
+     *                        digit; {@code false} if the rightmost digit is itself a check digit
+     * @return The Luhn sum, or -1 if a character isn't a digit
+     */
+    public static int sum(final CharSequence num, final int from, final int to, final boolean doubleRightmost) {
+        int sum = 0;
+        boolean doubleMe = doubleRightmost;
+
+        for (int i = to - 1; i >= from; i--) {
+            final int digit = num.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            sum += doubleMe ? DOUBLED[digit] : digit;
+            doubleMe = !doubleMe;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Calculates the Luhn sum of a run of ASCII digits.
+     * @param data The bytes to sum
+     * @param from Index of the first digit, inclusive
+     * @param to Index just past the last digit
+     * @param doubleRightmost {@code true} if the rightmost digit is doubled, as it is when calculating a check
+     *                        digit; {@code false} if the rightmost digit is itself a check digit
+     * @return The Luhn sum, or -1 if a byte isn't an ASCII digit
+     */
+    public static int sum(final byte[] data, final int from, final int to, final boolean doubleRightmost) {
+        if (to - from < SWAR_MIN_LENGTH) {
+            return scalarSum(data, from, to, doubleRightmost);
+        }
+
+        final int doubledParity = (to - (doubleRightmost ? 1 : 2)) & 1;
+        int sum = 0;
+        int i = from;
+
+        for (; i + 8 <= to; i += 8) {
+            final int blockSum = blockSum((long) LONG_VIEW.get(data, i), ((i - doubledParity) & 1) == 0 ? EVEN_BYTES : ODD_BYTES);
+
+            if (blockSum < 0) {
+                return -1;
+            }
+
+            sum += blockSum;
+        }
+
+        final int tail = scalarSum(data, i, to, doubleRightmost);
+
+        return tail < 0 ? -1 : sum + tail;
+    }
+
+    /**
+     * @param luhnSum A Luhn sum which excludes the check digit
+     * @return The check digit which makes the sum a multiple of ten
+     */
+    public static int checkDigit(final int luhnSum) {
+        return (luhnSum * 9) % 10;
+    }
+
+    /**
+     * @param digit 0 through 9
+     * @return What {@code digit} contributes to a Luhn sum when it sits in a doubled position
+     */
+    public static int doubled(final int digit) {
+        return DOUBLED[digit];
+    }
+
+    /**
+     * Determines whether a number held in a {@code long} passes Luhn validation.
+     * @param value An unsigned value ending with a check digit
+     * @param length How many digits {@code value} is considered to have, including leading zeros
+     * @return {@code true} if the number is valid
+     */
+    public static boolean passes(final long value, final int length) {
+        return checkDigit(sum(value, length, true)) == (int) Long.remainderUnsigned(value, 10);
+    }
+
+    /**
+     * Validates a number without throwing, so that callers checking large amounts of untrusted input don't pay
+     * for an exception on every bad entry.
+     * @param num A numeric string ending with a check digit
+     * @return {@linkplain #PASSED}, {@linkplain #FAILED} or {@linkplain #MALFORMED}
+     */
+    public static int check(final CharSequence num) {
+        if (num == null || num.length() == 0) {
+            return MALFORMED;
+        }
+
+        return toResult(sum(num, 0, num.length(), false));
+    }
+
+    /**
+     * Validates a number held as ASCII digits in a byte array, without throwing.
+     * @param data The bytes to read from
+     * @param from Index of the first digit, inclusive
+     * @param to Index just past the check digit
+     * @return {@linkplain #PASSED}, {@linkplain #FAILED} or {@linkplain #MALFORMED}
+     */
+    public static int check(final byte[] data, final int from, final int to) {
+        if (to <= from) {
+            return MALFORMED;
+        }
+
+        return toResult(sum(data, from, to, false));
+    }
+
+    /**
+     * The reference implementation, one digit at a time.  Also handles the digits after the last block of eight.
+     */
+    static int scalarSum(final byte[] data, final int from, final int to, final boolean doubleRightmost) {
+        int sum = 0;
+        boolean doubleMe = doubleRightmost;
+
+        for (int i = to - 1; i >= from; i--) {
+            final int digit = data[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            sum += doubleMe ? DOUBLED[digit] : digit;
+            doubleMe = !doubleMe;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Sums eight ASCII digits packed into a {@code long}, leftmost digit in the lowest byte.
+     * @param block Eight characters
+     * @param doubledBytes Mask of the bytes which sit in doubled positions
+     * @return The Luhn sum of the eight digits, or -1 if a byte isn't an ASCII digit
+     */
+    private static int blockSum(final long block, final long doubledBytes) {
+        // Every byte must be 0x30 through 0x39:  the high nibble is 3, and adding 6 doesn't carry into it
+        if (((block & HIGH_NIBBLES) | (((block + 6 * ONES) & HIGH_NIBBLES) >>> 4)) != 0x33 * ONES) {
+            return -1;
+        }
+
+        final long digits = block - ASCII_ZEROS;
+        final long doubled = digits & doubledBytes;
+
+        // Digits 5 through 9 become 8 through 12 when 3 is added, setting bit 3.  Those doubled digits exceed nine.
+        final long overNine = ((doubled + 3 * ONES) >>> 3) & ONES & doubledBytes;
+
+        // No byte carries or borrows:  each ends up between 0 and 9
+        final long luhnDigits = (digits & ~doubledBytes) + (doubled << 1) - overNine * 9;
+
+        return (int) ((luhnDigits * ONES) >>> 56);
+    }
+
+    private static int toResult(final int sum) {
+        if (sum < 0) {
+            return MALFORMED;
+        }
+
+        return sum % 10 == 0 ? PASSED : FAILED;
+    }
+}
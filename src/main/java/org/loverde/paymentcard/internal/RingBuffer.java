@@ -0,0 +1,110 @@
+package org.loverde.paymentcard.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.loverde.paymentcard.internal.Objects.failIf;
+
+
+/**
+ * A bounded, lock-free queue which any number of threads may offer to and poll from.  Each slot carries a
+ * sequence number which tells a thread whether the slot is ready to be written or read for its lap around the
+ * ring, so producers and consumers only contend on a single compare-and-set of the tail or head respectively.
+ * @param <T> The element type
+ */
+public class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+
+    /**
+     * @param capacity The minimum capacity.  It's rounded up to a power of two.
+     */
+    public RingBuffer(final int capacity) {
+        failIf(capacity < 1 || capacity > 1 << 30, () -> "Capacity must be between 1 and 2^30");
+
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @param item The item to add
+     * @return {@code true} if the item was added, {@code false} if the buffer is full
+     */
+    public boolean offer(final T item) {
+        long pos = tail.get();
+
+        while (true) {
+            final int slot = (int) pos & mask;
+            final long diff = sequences.get(slot) - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.set(slot, item);
+                    sequences.set(slot, pos + 1);
+                    return true;
+                }
+
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return The oldest item, or {@code null} if the buffer is empty
+     */
+    public T poll() {
+        long pos = head.get();
+
+        while (true) {
+            final int slot = (int) pos & mask;
+            final long diff = sequences.get(slot) - (pos + 1);
+
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    final T item = items.getAndSet(slot, null);
+                    sequences.set(slot, pos + mask + 1);
+                    return item;
+                }
+
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return The number of items in the buffer.  The result is approximate while other threads are active.
+     */
+    public int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return The capacity, after rounding up
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class BatchLuhnValidatorTest {
+
+    private static final List<String> MIXED = Arrays.asList(
+        "378282246310005",   // passes
+        "378282246310004",   // fails
+        null,                // malformed
+        "",                  // malformed
+        "4111-1111",         // malformed
+        "4111111111111111",  // passes
+        "411111111111111");  // fails
+
+    private final BatchLuhnValidator validator = new BatchLuhnValidator();
+
+
+    @Test
+    void constructor_invalidThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchLuhnValidator(0));
+    }
+
+    @Test
+    void validate_nullList() {
+        assertThrows(IllegalArgumentException.class, () -> validator.validate((List<String>) null));
+    }
+
+    @Test
+    void validate_list() {
+        validateMixed(validator.validate(MIXED));
+    }
+
+    @Test
+    void validate_sequentialList() {
+        validateMixed(validator.validate(new LinkedList<>(MIXED)));
+    }
+
+    @Test
+    void validate_emptyList() {
+        final LuhnBatchResult result = validator.validate(List.of());
+
+        assertEquals(0, result.size());
+        assertEquals(new LuhnCounts(0, 0, 0), result.counts());
+    }
+
+    @Test
+    void validate_bytes() {
+        final StringBuilder packed = new StringBuilder();
+        final int[] offsets = new int[MIXED.size() + 1];
+
+        for (int i = 0; i < MIXED.size(); i++) {
+            offsets[i] = packed.length();
+            packed.append(MIXED.get(i) == null ? "" : MIXED.get(i));
+        }
+
+        offsets[MIXED.size()] = packed.length();
+
+        final LuhnBatchResult result = validator.validate(packed.toString().getBytes(StandardCharsets.US_ASCII), offsets);
+
+        assertEquals(new LuhnCounts(2, 2, 3), result.counts());
+        assertTrue(result.passed().get(0));
+        assertTrue(result.malformed().get(2));
+        assertTrue(result.malformed().get(4));
+    }
+
+    @Test
+    void validate_bytesOutOfBounds() {
+        final byte[] data = "4111111111111111".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validate(data, new int[] { 0, 17 }));
+        assertThrows(IllegalArgumentException.class, () -> validator.validate(data, new int[] { 8, 4 }));
+        assertThrows(IllegalArgumentException.class, () -> validator.validate(data, new int[0]));
+    }
+
+    @Test
+    void validate_parallelMatchesSequential() {
+        final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+        final List<String> nums = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            final String num = generator.generateByCardType(CardType.values()[i % CardType.values().length]);
+
+            switch (i % 5) {
+                case 0 -> nums.add(num.substring(0, num.length() - 1) + (char) ('0' + (num.charAt(num.length() - 1) - '0' + 1) % 10));
+                case 1 -> nums.add(i % 2 == 0 ? null : num + "x");
+                default -> nums.add(num);
+            }
+        }
+
+        final LuhnBatchResult sequential = new BatchLuhnValidator(Integer.MAX_VALUE).validate(nums);
+        final LuhnBatchResult parallel = new BatchLuhnValidator(1).validate(nums);
+
+        assertEquals(sequential, parallel);
+        assertEquals(new LuhnCounts(30_000, 10_000, 10_000), parallel.counts());
+
+        for (int i = 0; i < nums.size(); i++) {
+            assertEquals(nums.get(i) != null && !nums.get(i).endsWith("x") && generator.passesLuhnCheck(nums.get(i)), parallel.passed().get(i), "Entry " + i);
+        }
+    }
+
+    @Test
+    void count_stream() {
+        assertEquals(new LuhnCounts(2, 2, 3), validator.count(MIXED.stream()));
+        assertEquals(new LuhnCounts(2, 2, 3), validator.count(MIXED.parallelStream()));
+        assertEquals(new LuhnCounts(0, 0, 0), validator.count(Stream.empty()));
+    }
+
+    @Test
+    void count_acceptsCardNumbers() {
+        assertEquals(new LuhnCounts(1, 1, 0), validator.count(Stream.of(CardNumber.of("6011111111111117"), CardNumber.of("6011111111111118"))));
+    }
+
+    private static void validateMixed(final LuhnBatchResult result) {
+        assertEquals(MIXED.size(), result.size());
+        assertEquals(new LuhnCounts(2, 2, 3), result.counts());
+
+        assertTrue(result.passed().get(0));
+        assertFalse(result.passed().get(1));
+        assertFalse(result.malformed().get(1));
+        assertTrue(result.malformed().get(2));
+        assertTrue(result.malformed().get(3));
+        assertTrue(result.malformed().get(4));
+        assertTrue(result.passed().get(5));
+        assertFalse(result.passed().get(6));
+    }
+}
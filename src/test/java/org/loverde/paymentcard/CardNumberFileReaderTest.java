@@ -0,0 +1,211 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardNumberFileReaderTest {
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void constructor_notAFixtureFile() throws IOException {
+        final Path path = tempDir.resolve("numbers.txt");
+        Files.writeString(path, "4111111111111111\n378282246310005\n");
+
+        assertThrows(IOException.class, () -> new CardNumberFileReader(path));
+    }
+
+    @Test
+    void constructor_tooShort() throws IOException {
+        final Path path = tempDir.resolve("short.pcg");
+        Files.write(path, new byte[] { 'P', 'C' });
+
+        assertThrows(IOException.class, () -> new CardNumberFileReader(path));
+    }
+
+    @Test
+    void constructor_truncated() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write("4111111111111111");
+            writer.write("4111111111111111");
+        }
+
+        Files.write(path, Arrays.copyOf(Files.readAllBytes(path), (int) Files.size(path) - 1));
+
+        assertThrows(IOException.class, () -> new CardNumberFileReader(path));
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+        final List<CardNumber> written = new ArrayList<>();
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            for (final CardType cardType : CardType.values()) {
+                for (int i = 0; i < 5_000; i++) {
+                    final CardNumber num = generator.generateCardNumberByCardType(cardType);
+
+                    writer.write(num);
+                    written.add(num);
+                }
+            }
+
+            // Not of any known card type, with a leading zero
+            writer.write("0987654321");
+            written.add(CardNumber.of("0987654321"));
+
+            // Beyond the range of a signed long
+            writer.write("9999999999999999995");
+            written.add(CardNumber.of("9999999999999999995"));
+        }
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertEquals(written.size(), reader.size());
+
+            for (int i = 0; i < written.size(); i++) {
+                final CardNumber expected = written.get(i);
+                final CardNumber actual = reader.get(i);
+
+                assertEquals(expected, actual);
+                assertEquals(expected.toString(), actual.toString());
+                assertEquals(expected.getCardType(), reader.getCardType(i));
+                assertEquals(expected.passesLuhnCheck(), reader.passesLuhnCheck(i));
+            }
+
+            assertNull(reader.getCardType(written.size() - 2));
+            assertEquals("0987654321", reader.get(written.size() - 2).toString());
+        }
+    }
+
+    @Test
+    void counts() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write("4111111111111111");
+            writer.write("4222222222222");
+            writer.write("378282246310005");
+            writer.write("6011111111111117");
+            writer.write("12345");
+        }
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertEquals(Map.of(CardType.VISA, 2L, CardType.AMERICAN_EXPRESS, 1L, CardType.DISCOVER, 1L), reader.getCardTypeCounts());
+            assertEquals(Map.of(5, 1L, 13, 1L, 15, 1L, 16, 2L), reader.getLengthCounts());
+        }
+    }
+
+    @Test
+    void get_outOfBounds() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write("4111111111111111");
+        }
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.get(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getValue(-1));
+        }
+    }
+
+    @Test
+    void cursor() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write("378282246310005");
+            writer.write("378282246310004");
+            writer.write("6011111111111117");
+        }
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            final CardNumberFileReader.Cursor cursor = reader.cursor();
+
+            assertEquals(0, cursor.index());
+            assertEquals("378282246310005", cursor.toString());
+            assertEquals(CardType.AMERICAN_EXPRESS, CardType.fromNumber(cursor));
+
+            final List<CharSequence> validated = new ArrayList<>();
+            final BatchLuhnValidator validator = new BatchLuhnValidator();
+
+            for (int i = 0; i < reader.size(); i++) {
+                assertEquals(i != 1, validator.count(Stream.of(cursor.moveTo(i))).passed() == 1);
+                validated.add(cursor.toString());
+            }
+
+            assertEquals(List.of("378282246310005", "378282246310004", "6011111111111117"), validated);
+            assertEquals(CardType.DISCOVER, CardType.fromNumber(cursor.moveTo(2)));
+            assertThrows(IndexOutOfBoundsException.class, () -> cursor.charAt(16));
+        }
+    }
+
+    @Test
+    void empty() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        new CardNumberFileWriter(path).close();
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertEquals(0, reader.size());
+            assertTrue(reader.getCardTypeCounts().isEmpty());
+            assertEquals(-1, reader.cursor().index());
+            assertFalse(reader.getLengthCounts().containsKey(16));
+        }
+    }
+}
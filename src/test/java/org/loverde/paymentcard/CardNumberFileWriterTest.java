@@ -0,0 +1,125 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class CardNumberFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void constructor_nullPath() {
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberFileWriter(null));
+    }
+
+    @Test
+    void write_invalidLength() throws IOException {
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(tempDir.resolve("fixture.pcg"))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write(4, 0, null));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(4, 20, null));
+        }
+    }
+
+    @Test
+    void write_invalidNumber() throws IOException {
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(tempDir.resolve("fixture.pcg"))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write("4111-1111"));
+            assertThrows(IllegalArgumentException.class, () -> writer.write((CardNumber) null));
+        }
+    }
+
+    @Test
+    void write_afterClose() throws IOException {
+        final CardNumberFileWriter writer = new CardNumberFileWriter(tempDir.resolve("fixture.pcg"));
+        writer.close();
+
+        assertThrows(IllegalArgumentException.class, () -> writer.write("4111111111111111"));
+    }
+
+    @Test
+    void close_fixedSizeRecords() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+        final long emptySize;
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            assertEquals(0, writer.getRecordCount());
+        }
+
+        emptySize = Files.size(path);
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write("4111111111111111");
+            writer.write("378282246310005");
+            writer.write("42");
+
+            assertEquals(3, writer.getRecordCount());
+        }
+
+        assertEquals(emptySize + 3L * CardNumberFileWriter.RECORD_SIZE, Files.size(path));
+    }
+
+    @Test
+    void write_batch() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+        final CardRecordBatch batch = new CardRecordBatch(100);
+
+        new CardRecordGenerator(List.of("ALICE SMITH")).fill(batch, 100, CardType.VISA, CardType.AMERICAN_EXPRESS);
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(path)) {
+            writer.write(batch);
+        }
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertEquals(100, reader.size());
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(batch.getCardNumber(i), reader.get(i));
+                assertEquals(batch.getCardType(i), reader.getCardType(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardNumberPoolTest {
+
+    private static final int CAPACITY = 256;
+    private static final int WATERMARK = 64;
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(null, CAPACITY, WATERMARK, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(generator, 0, 0, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(generator, CAPACITY, CAPACITY, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(generator, CAPACITY, -1, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(generator, CAPACITY, WATERMARK));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberPool(generator, CAPACITY, WATERMARK, (CardType) null));
+    }
+
+    @Test
+    void take_cardTypeNotInPool() {
+        try (final CardNumberPool pool = new CardNumberPool(generator, CAPACITY, WATERMARK, CardType.VISA)) {
+            assertThrows(IllegalArgumentException.class, () -> pool.take(CardType.DISCOVER));
+            assertThrows(IllegalArgumentException.class, () -> pool.take(null));
+        }
+    }
+
+    @Test
+    void take_underflowWhenNotStarted() {
+        try (final CardNumberPool pool = new CardNumberPool(generator, CAPACITY, WATERMARK, CardType.AMERICAN_EXPRESS)) {
+            assertNull(pool.poll(CardType.AMERICAN_EXPRESS));
+
+            final String num = pool.take(CardType.AMERICAN_EXPRESS);
+            assertEquals(CardType.AMERICAN_EXPRESS, CardType.fromNumber(num));
+            assertTrue(generator.passesLuhnCheck(num));
+
+            final CardNumberPool.Metrics metrics = pool.getMetrics(CardType.AMERICAN_EXPRESS);
+            // The empty poll handed nothing out; the take's inline fallback did
+            assertEquals(1, metrics.taken());
+            assertEquals(2, metrics.underflows());
+            assertEquals(0, metrics.refills());
+        }
+    }
+
+    @Test
+    void start_fillsEveryCardType() throws InterruptedException {
+        try (final CardNumberPool pool = new CardNumberPool(generator, CAPACITY, WATERMARK, CardType.values()).start()) {
+            for (final CardType cardType : CardType.values()) {
+                awaitFull(pool, cardType);
+
+                final String num = pool.poll(cardType);
+
+                assertNotNull(num);
+                assertEquals(cardType, CardType.fromNumber(num));
+                assertTrue(generator.passesLuhnCheck(num));
+            }
+        }
+    }
+
+    @Test
+    void take_refillsBelowWatermark() throws InterruptedException {
+        try (final CardNumberPool pool = new CardNumberPool(generator, CAPACITY, WATERMARK, CardType.MASTERCARD).start()) {
+            awaitFull(pool, CardType.MASTERCARD);
+
+            for (int i = 0; i < CAPACITY - WATERMARK; i++) {
+                assertNotNull(pool.poll(CardType.MASTERCARD));
+            }
+
+            awaitFull(pool, CardType.MASTERCARD);
+
+            assertTrue(pool.getMetrics(CardType.MASTERCARD).refills() >= 2);
+        }
+    }
+
+    @Test
+    void take_concurrentConsumers() throws Exception {
+        final int threads = 4;
+        final int perThread = 10_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (final CardNumberPool pool = new CardNumberPool(generator, CAPACITY, WATERMARK, CardType.VISA, CardType.DISCOVER).start()) {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                final CardType cardType = t % 2 == 0 ? CardType.VISA : CardType.DISCOVER;
+
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        final String num = pool.take(cardType);
+                        assertEquals(cardType, CardType.fromNumber(num));
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals((long) threads / 2 * perThread, pool.getMetrics(CardType.VISA).taken());
+            assertEquals((long) threads / 2 * perThread, pool.getMetrics(CardType.DISCOVER).taken());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitFull(final CardNumberPool pool, final CardType cardType) throws InterruptedException {
+        for (int i = 0; i < 1000 && pool.getMetrics(cardType).available() < CAPACITY; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(CAPACITY, pool.getMetrics(cardType).available(), "Pool for " + cardType + " was never filled");
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardNumberSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberSorter(null));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberSorter(tempDir, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberSorter(tempDir, CardNumberSorter.MAX_RUN_SIZE + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberSorter(tempDir, 16, 0));
+    }
+
+    @Test
+    void finish_text_sortedAndUnique() throws IOException {
+        final SplittableRandom random = new SplittableRandom(7);
+        final TreeSet<Long> expected = new TreeSet<>(Long::compareUnsigned);
+        final Path output = tempDir.resolve("sorted.txt");
+
+        // Many small runs, with duplicates both within and across runs
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 1000, 3)) {
+            for (int i = 0; i < 20_000; i++) {
+                final long value = 4_000_000_000_000_000L + random.nextLong(5_000);
+
+                expected.add(value);
+                sorter.add(value);
+            }
+
+            assertEquals(20_000, sorter.getAddedCount());
+            assertEquals(expected.size(), sorter.finish(output, CardNumberSorter.Format.TEXT));
+        }
+
+        final List<String> lines = Files.readAllLines(output);
+
+        assertEquals(expected.size(), lines.size());
+        assertEquals(expected.stream().map(Long::toUnsignedString).toList(), lines);
+    }
+
+    @Test
+    void finish_unsignedOrder() throws IOException {
+        final Path output = tempDir.resolve("sorted.txt");
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 2, 1)) {
+            // The 19-digit numbers are negative as signed values
+            sorter.add("9999999999999999995");
+            sorter.add("4111111111111111");
+            sorter.add("6221260000000000001");
+            sorter.add("378282246310005");
+            sorter.add("4111111111111111");
+
+            assertEquals(4, sorter.finish(output, CardNumberSorter.Format.TEXT));
+        }
+
+        assertEquals(List.of("378282246310005", "4111111111111111", "6221260000000000001", "9999999999999999995"), Files.readAllLines(output));
+    }
+
+    @Test
+    void finish_binary() throws IOException {
+        final Path output = tempDir.resolve("sorted.pcg");
+        final List<CardNumber> added = new ArrayList<>();
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 100, 2)) {
+            new CardRecordGenerator(List.of("ALICE SMITH")).generate(1000, new CardRecordBatch(64), batch -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    added.add(batch.getCardNumber(i));
+                }
+
+                sorter.add(batch);
+            }, CardType.values());
+
+            sorter.finish(output, CardNumberSorter.Format.BINARY);
+        }
+
+        final List<CardNumber> expected = added.stream().distinct().sorted(CardNumberSorterTest::numerically).toList();
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(output)) {
+            assertEquals(expected.size(), reader.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), reader.get(i));
+                assertEquals(expected.get(i).getCardType(), reader.getCardType(i));
+            }
+        }
+    }
+
+    @Test
+    void finish_empty() throws IOException {
+        final Path output = tempDir.resolve("sorted.txt");
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir)) {
+            assertEquals(0, sorter.finish(output, CardNumberSorter.Format.TEXT));
+        }
+
+        assertEquals(0, Files.size(output));
+    }
+
+    @Test
+    void finish_twice() throws IOException {
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 16, 1)) {
+            sorter.finish(tempDir.resolve("sorted.txt"), CardNumberSorter.Format.TEXT);
+
+            assertThrows(IllegalArgumentException.class, () -> sorter.finish(tempDir.resolve("again.txt"), CardNumberSorter.Format.TEXT));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add(4111111111111111L));
+        }
+    }
+
+    @Test
+    void addAll_textFile() throws IOException {
+        final Path input = tempDir.resolve("numbers.txt");
+        final Path output = tempDir.resolve("sorted.txt");
+
+        Files.writeString(input, "5105105105105100\r\n\r\n4111111111111111\n378282246310005\n4111111111111111");
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 16, 1)) {
+            sorter.addAll(input);
+            sorter.finish(output, CardNumberSorter.Format.TEXT);
+        }
+
+        assertEquals(List.of("378282246310005", "4111111111111111", "5105105105105100"), Files.readAllLines(output));
+    }
+
+    @Test
+    void addAll_textFile_malformed() throws IOException {
+        final Path input = tempDir.resolve("numbers.txt");
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 16, 1)) {
+            Files.writeString(input, "4111111111111111\n4111 1111 1111 1111\n");
+            assertThrows(IOException.class, () -> sorter.addAll(input));
+
+            Files.writeString(input, "0411111111111111\n");
+            assertThrows(IOException.class, () -> sorter.addAll(input));
+
+            Files.writeString(input, "41111111111111111111\n");
+            assertThrows(IOException.class, () -> sorter.addAll(input));
+        }
+    }
+
+    @Test
+    void addAll_fixtureFile() throws IOException {
+        final Path fixture = tempDir.resolve("fixture.pcg");
+        final Path output = tempDir.resolve("sorted.txt");
+
+        try (final CardNumberFileWriter writer = new CardNumberFileWriter(fixture)) {
+            writer.write("6011111111111117");
+            writer.write("378282246310005");
+            writer.write("6011111111111117");
+        }
+
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 16, 1);
+             final CardNumberFileReader reader = new CardNumberFileReader(fixture)) {
+            sorter.addAll(reader);
+            sorter.finish(output, CardNumberSorter.Format.TEXT);
+        }
+
+        assertEquals(List.of("378282246310005", "6011111111111117"), Files.readAllLines(output));
+    }
+
+    @Test
+    void add_invalidNumbers() throws IOException {
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 16, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> sorter.add((String) null));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add(""));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add("4111-1111"));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add("0411111111111111"));
+
+            // Rejected when added rather than when the runs are written out
+            assertThrows(IllegalArgumentException.class, () -> sorter.add(0L));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add(-1L));
+            assertThrows(IllegalArgumentException.class, () -> sorter.add(Long.parseUnsignedLong("10000000000000000000")));
+
+            sorter.add(Long.parseUnsignedLong("9999999999999999999"));
+            assertEquals(1, sorter.getAddedCount());
+        }
+    }
+
+    @Test
+    void finish_runsLargerThanAReadChunk() throws IOException {
+        final SplittableRandom random = new SplittableRandom(11);
+        final TreeSet<Long> expected = new TreeSet<>(Long::compareUnsigned);
+        final Path output = tempDir.resolve("sorted.txt");
+
+        // Runs of 20,000 numbers are read back in several chunks each
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 20_000, 2)) {
+            for (int i = 0; i < 70_000; i++) {
+                final long value = 5_000_000_000_000_000L + random.nextLong(100_000);
+
+                expected.add(value);
+                sorter.add(value);
+            }
+
+            assertEquals(expected.size(), sorter.finish(output, CardNumberSorter.Format.TEXT));
+        }
+
+        assertEquals(expected.stream().map(Long::toUnsignedString).toList(), Files.readAllLines(output));
+    }
+
+    @Test
+    void close_deletesRuns() throws IOException {
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 10, 2)) {
+            for (long i = 1; i <= 100; i++) {
+                sorter.add(i);
+            }
+        }
+
+        try (final Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.findAny().isEmpty());
+        }
+    }
+
+    @Test
+    void close_deletesRunsAfterFinish() throws IOException {
+        final Path output = tempDir.resolve("out").resolve("sorted.txt");
+        Files.createDirectory(output.getParent());
+
+        // The merge has read every run by now; nothing may still hold them open
+        try (final CardNumberSorter sorter = new CardNumberSorter(tempDir, 10, 2)) {
+            for (long i = 1; i <= 100; i++) {
+                sorter.add(i);
+            }
+
+            sorter.finish(output, CardNumberSorter.Format.TEXT);
+        }
+
+        try (final Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(output.getParent()), files.toList());
+        }
+    }
+
+    private static int numerically(final CardNumber a, final CardNumber b) {
+        return Long.compareUnsigned(a.getValue(), b.getValue());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardNumberTest {
+
+    @Test
+    void of_null() {
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.of(null));
+    }
+
+    @Test
+    void of_empty() {
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.of(""));
+    }
+
+    @Test
+    void of_nonDigit() {
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.of("4111-1111"));
+    }
+
+    @Test
+    void of_tooLong() {
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.of("12345678901234567890"));
+    }
+
+    @Test
+    void of_valueLongerThanLength() {
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.of(12345, 4));
+    }
+
+    @Test
+    void of_detectsCardType() {
+        assertEquals(CardType.AMERICAN_EXPRESS, CardNumber.of("378282246310005").getCardType());
+        assertEquals(CardType.VISA, CardNumber.of("4111111111111111").getCardType());
+        assertEquals(CardType.MASTERCARD, CardNumber.of("5105105105105100").getCardType());
+        assertEquals(CardType.MASTERCARD, CardNumber.of("2221000000000009").getCardType());
+        assertEquals(CardType.DISCOVER, CardNumber.of("6011111111111117").getCardType());
+        assertEquals(CardType.DISCOVER, CardNumber.of("6221260000000000005").getCardType());
+    }
+
+    @Test
+    void of_unknownCardType() {
+        assertNull(CardNumber.of("9876543210").getCardType());
+        assertNull(CardNumber.of("411111111111111").getCardType(), "VISA prefix but not a VISA length");
+    }
+
+    @Test
+    void of_nineteenDigitsBeyondSignedLong() {
+        final String digits = "9999999999999999999";
+        final CardNumber num = CardNumber.of(digits);
+
+        assertEquals(19, num.length());
+        assertEquals(digits, num.toString());
+        assertEquals(digits, Long.toUnsignedString(num.getValue()));
+    }
+
+    @Test
+    void of_leadingZeros() {
+        final CardNumber num = CardNumber.of("0042");
+
+        assertEquals(4, num.length());
+        assertEquals("0042", num.toString());
+        assertEquals('0', num.charAt(0));
+    }
+
+    @Test
+    void digits() {
+        final CardNumber num = CardNumber.of("378282246310005");
+
+        assertEquals(15, num.length());
+        assertEquals(3, num.digitAt(0));
+        assertEquals('7', num.charAt(1));
+        assertEquals(37, num.getPrefix(2));
+        assertEquals(378282, num.getPrefix(6));
+        assertEquals(5, num.getCheckDigit());
+        assertEquals("8282", num.subSequence(2, 6).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> num.charAt(15));
+        assertThrows(IllegalArgumentException.class, () -> num.getPrefix(16));
+    }
+
+    @Test
+    void passesLuhnCheck() {
+        assertTrue(CardNumber.of("378282246310005").passesLuhnCheck());
+        assertTrue(CardNumber.of("6011111111111117").passesLuhnCheck());
+        assertFalse(CardNumber.of("378282246310004").passesLuhnCheck());
+    }
+
+    @Test
+    void appendTo_stringBuilder() {
+        final StringBuilder sb = new StringBuilder("PAN=");
+
+        assertSame(sb, CardNumber.of("4111111111111111").appendTo(sb));
+        assertEquals("PAN=4111111111111111", sb.toString());
+    }
+
+    @Test
+    void appendTo_appendable() throws IOException {
+        final StringWriter out = new StringWriter();
+        CardNumber.of("4111111111111111").appendTo(out);
+
+        assertEquals("4111111111111111", out.toString());
+    }
+
+    @Test
+    void appendGroupedTo() throws IOException {
+        assertEquals("4111 1111 1111 1111", CardNumber.of("4111111111111111").appendGroupedTo(new StringBuilder()).toString());
+        assertEquals("3782 822463 10005", CardNumber.of("378282246310005").toGroupedString());
+        assertEquals("6221 2600 0000 0000 005", CardNumber.of("6221260000000000005").toGroupedString());
+
+        final StringWriter out = new StringWriter();
+        CardNumber.of("4111111111111111").appendGroupedTo(out);
+
+        assertEquals("4111 1111 1111 1111", out.toString());
+    }
+
+    @Test
+    void appendMaskedTo() throws IOException {
+        assertEquals("************1111", CardNumber.of("4111111111111111").appendMaskedTo(new StringBuilder()).toString());
+        assertEquals("***********0005", CardNumber.of("378282246310005").toMaskedString());
+
+        final StringWriter out = new StringWriter();
+        CardNumber.of("42").appendMaskedTo(out);
+
+        assertEquals("42", out.toString());
+    }
+
+    @Test
+    void appendTo_builderMatchesAppendable() throws IOException {
+        // The StringBuilder forms write their digits from the right; they must agree with the Appendable forms
+        for (int length = 1; length <= 19; length++) {
+            final CardNumber num = CardNumber.of("9876543210123456789".substring(0, length));
+            final StringWriter grouped = new StringWriter().append("x");
+            final StringWriter masked = new StringWriter().append("x");
+
+            num.appendGroupedTo(grouped);
+            num.appendMaskedTo(masked);
+
+            assertEquals(grouped.toString(), num.appendGroupedTo(new StringBuilder("x")).toString());
+            assertEquals(masked.toString(), num.appendMaskedTo(new StringBuilder("x")).toString());
+        }
+    }
+
+    @Test
+    void toString_isCached() {
+        final CardNumber num = CardNumber.of("4111111111111111");
+        assertSame(num.toString(), num.toString());
+    }
+
+    @Test
+    void equalsAndCompareTo() {
+        assertEquals(CardNumber.of("4111111111111111"), CardNumber.of("4111111111111111"));
+        assertEquals(CardNumber.of("4111111111111111").hashCode(), CardNumber.of("4111111111111111").hashCode());
+        assertNotEquals(CardNumber.of("042"), CardNumber.of("42"));
+
+        assertTrue(CardNumber.of("42").compareTo(CardNumber.of("43")) < 0);
+        assertTrue(CardNumber.of("9999999999999999999").compareTo(CardNumber.of("1")) > 0);
+        assertTrue(CardNumber.of("42").compareTo(CardNumber.of("042")) < 0);
+    }
+}
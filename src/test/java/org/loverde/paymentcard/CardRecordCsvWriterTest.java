@@ -0,0 +1,133 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardRecordCsvWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordCsvWriter((Path) null));
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordCsvWriter((ByteArrayOutputStream) null));
+    }
+
+    @Test
+    void write() throws IOException {
+        final CardRecordGenerator generator = new CardRecordGenerator(new PaymentCardGeneratorImpl(), List.of("ALICE SMITH"), YearMonth.of(2028, 3), 1);
+        final CardRecordBatch batch = new CardRecordBatch(500);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        generator.fill(batch, 500, CardType.AMERICAN_EXPRESS, CardType.DISCOVER);
+
+        try (final CardRecordCsvWriter writer = new CardRecordCsvWriter(out)) {
+            writer.write(batch);
+            assertEquals(500, writer.getRecordCount());
+        }
+
+        final String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(501, lines.length);
+        assertEquals("number,card_type,expiration,security_code,name", lines[0]);
+
+        for (int i = 0; i < batch.size(); i++) {
+            final String[] fields = lines[i + 1].split(",");
+            final CardType cardType = batch.getCardType(i);
+
+            assertEquals(batch.getCardNumber(i).toString(), fields[0]);
+            assertEquals(cardType.name(), fields[1]);
+            assertEquals("03/28", fields[2]);
+            assertEquals(cardType.getSecurityCodeLength(), fields[3].length());
+            assertEquals(batch.getSecurityCode(i), Integer.parseInt(fields[3]));
+            assertEquals("ALICE SMITH", fields[4]);
+        }
+    }
+
+    @Test
+    void write_quotesNames() throws IOException {
+        final CardRecordGenerator generator = new CardRecordGenerator(List.of("SMITH, ALICE \"AL\""));
+        final CardRecordBatch batch = new CardRecordBatch(1);
+        final Path path = tempDir.resolve("records.csv");
+
+        generator.fill(batch, 1, CardType.VISA);
+
+        try (final CardRecordCsvWriter writer = new CardRecordCsvWriter(path)) {
+            writer.write(batch);
+        }
+
+        final List<String> lines = Files.readAllLines(path);
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).endsWith(",\"SMITH, ALICE \"\"AL\"\"\""), lines.get(1));
+    }
+
+    @Test
+    void write_manyBatches() throws IOException {
+        final CardRecordGenerator generator = new CardRecordGenerator(List.of("ALICE SMITH", "BOB JONES"));
+        final Path path = tempDir.resolve("records.csv");
+
+        // Enough rows to overflow the writer's buffer several times
+        try (final CardRecordCsvWriter writer = new CardRecordCsvWriter(path)) {
+            generator.generate(20_000, new CardRecordBatch(1024), writer::write, CardType.VISA);
+        }
+
+        assertEquals(20_001, Files.readAllLines(path).size());
+    }
+
+    @Test
+    void write_afterClose() throws IOException {
+        final CardRecordCsvWriter writer = new CardRecordCsvWriter(new ByteArrayOutputStream());
+        writer.close();
+
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new CardRecordBatch(1)));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class CardRecordGeneratorTest {
+
+    private static final List<String> NAMES = List.of("ALICE SMITH", "BOB JONES", "CAROL WHITE");
+
+    private final CardRecordGenerator generator = new CardRecordGenerator(new PaymentCardGeneratorImpl(), NAMES, YearMonth.of(2027, 11), 3);
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordGenerator(null));
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordGenerator(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordGenerator(null, NAMES, YearMonth.of(2027, 11), 3));
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordGenerator(new PaymentCardGeneratorImpl(), NAMES, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> new CardRecordGenerator(new PaymentCardGeneratorImpl(), NAMES, YearMonth.of(2027, 11), 0));
+    }
+
+    @Test
+    void fill() {
+        final CardRecordBatch batch = new CardRecordBatch(1000);
+
+        generator.fill(batch, 1000, CardType.values());
+
+        assertEquals(1000, batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            final CardNumber num = batch.getCardNumber(i);
+            final CardType cardType = batch.getCardType(i);
+
+            assertTrue(num.passesLuhnCheck(), num + " doesn't pass Luhn validation");
+            assertEquals(cardType, num.getCardType());
+            assertEquals(num.length(), batch.getLength(i));
+
+            final int expiration = batch.getExpiration(i);
+            assertTrue(expiration == 202711 || expiration == 202712 || expiration == 202801, "Unexpected expiration " + expiration);
+
+            final int securityCode = batch.getSecurityCode(i);
+            assertTrue(securityCode >= 0 && securityCode < (cardType == CardType.AMERICAN_EXPRESS ? 10_000 : 1_000));
+
+            assertEquals(NAMES.get(batch.getNameIndex(i)), batch.getName(i));
+        }
+
+        assertEquals(NAMES, batch.getNames());
+    }
+
+    @Test
+    void fill_partial() {
+        final CardRecordBatch batch = new CardRecordBatch(10);
+
+        generator.fill(batch, 4, CardType.VISA);
+
+        assertEquals(4, batch.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getValue(4));
+    }
+
+    @Test
+    void fill_invalidArguments() {
+        final CardRecordBatch batch = new CardRecordBatch(10);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(null, 1, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(batch, 11, CardType.VISA));
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(batch, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.fill(batch, 1, CardType.VISA, null));
+    }
+
+    @Test
+    void generate() throws IOException {
+        final CardRecordBatch batch = new CardRecordBatch(64);
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        generator.generate(200, batch, b -> {
+            batchSizes.add(b.size());
+
+            for (int i = 0; i < b.size(); i++) {
+                assertEquals(CardType.MASTERCARD, b.getCardType(i));
+            }
+        }, CardType.MASTERCARD);
+
+        assertEquals(List.of(64, 64, 64, 8), batchSizes);
+    }
+}
@@ -33,11 +33,14 @@
 
 package org.loverde.paymentcard;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
@@ -57,4 +60,39 @@ class CardTypeTest {
     void cardTypeEnumIsUnmodifiable_lengths() {
         assertThrows(UnsupportedOperationException.class, () -> Arrays.stream(CardType.values()).forEach(cardType -> cardType.getLengths().clear()));
     }
+
+    @ParameterizedTest(name = "CardStatus.{0} ranges cannot be modified at run time")
+    @EnumSource(CardType.class)
+    void cardTypeEnumIsUnmodifiable_ranges(final CardType cardType) {
+        assertThrows(UnsupportedOperationException.class, () -> cardType.getRanges().clear());
+    }
+
+    @ParameterizedTest(name = "CardStatus.{0} prefixes agree with its ranges")
+    @EnumSource(CardType.class)
+    void prefixesMatchRanges(final CardType cardType) {
+        assertEquals(cardType.getRanges().stream().mapToLong(Range::size).sum(), cardType.getPrefixes().size());
+    }
+
+    @ParameterizedTest(name = "CardStatus.{0} is detected from its own prefixes and lengths")
+    @EnumSource(CardType.class)
+    void fromNumber(final CardType cardType) {
+        for (final Long prefix : cardType.getPrefixes()) {
+            for (final Integer length : cardType.getLengths()) {
+                final String num = prefix + "0".repeat(length - prefix.toString().length());
+                assertEquals(cardType, CardType.fromNumber(num), num);
+            }
+        }
+    }
+
+    @Test
+    void fromNumber_unknown() {
+        assertNull(CardType.fromNumber("1234567890123456"));
+        assertNull(CardType.fromNumber("41111"));
+        assertNull(CardType.fromNumber("4111x11111111111"));
+    }
+
+    @Test
+    void fromNumber_null() {
+        assertThrows(IllegalArgumentException.class, () -> CardType.fromNumber(null));
+    }
 }
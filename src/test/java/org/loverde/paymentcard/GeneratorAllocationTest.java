@@ -0,0 +1,153 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * <p>
+ * Regression gate for allocation per generated number.  Allocated bytes are counted by the JVM rather than timed,
+ * so the results don't depend on the machine or its load.  The tests take a few seconds, so they're tagged
+ * {@code performance} and run by the {@code performanceTest} Gradle task, which {@code check} depends on, rather
+ * than by {@code test}.
+ * </p>
+ *
+ * <p>
+ * Thresholds come from system properties, which the build sets from {@code gradle.properties}:
+ * </p>
+ *
+ * <ul>
+ *    <li>{@code performance.maxBytesPerString}:  bytes allocated per {@linkplain PaymentCardGenerator#generateByCardType(CardType)}</li>
+ *    <li>{@code performance.maxBytesPerCardNumber}:  bytes allocated per {@linkplain PaymentCardGenerator#generateCardNumberByCardType(CardType)}</li>
+ *    <li>{@code performance.maxBytesPerRecord}:  bytes allocated per record by {@linkplain CardRecordGenerator#fill(CardRecordBatch, int, CardType...)}</li>
+ * </ul>
+ *
+ * <p>
+ * Rendering a {@linkplain CardNumber} into a reused {@linkplain StringBuilder} has no threshold to tune:  it must not
+ * allocate.
+ * </p>
+ */
+@Tag("performance")
+class GeneratorAllocationTest {
+
+    private static final double MAX_BYTES_PER_STRING = Double.parseDouble(System.getProperty("performance.maxBytesPerString", "128"));
+    private static final double MAX_BYTES_PER_CARD_NUMBER = Double.parseDouble(System.getProperty("performance.maxBytesPerCardNumber", "48"));
+    private static final double MAX_BYTES_PER_RECORD = Double.parseDouble(System.getProperty("performance.maxBytesPerRecord", "1"));
+
+    /** Rendering into a reused builder shouldn't allocate at all; this only absorbs the measurement's own overhead */
+    private static final double MAX_BYTES_PER_RENDER = 0.01;
+
+    private static final int ITERATIONS = 500_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+
+    /** Results are stored here so that escape analysis can't optimize the allocations being measured out of existence */
+    private final Object[] sink = new Object[1024];
+
+
+    @Test
+    void allocationPerString() {
+        assertAllocation("generateByCardType", MAX_BYTES_PER_STRING, i -> generator.generateByCardType(CardType.VISA), ITERATIONS);
+    }
+
+    @Test
+    void allocationPerCardNumber() {
+        assertAllocation("generateCardNumberByCardType", MAX_BYTES_PER_CARD_NUMBER, i -> generator.generateCardNumberByCardType(CardType.VISA), ITERATIONS);
+    }
+
+    @Test
+    void allocationPerGroupedRender() {
+        final CardNumber num = CardNumber.of("4111111111111111");
+        final StringBuilder sb = new StringBuilder(32);
+
+        assertAllocation("CardNumber.appendGroupedTo", MAX_BYTES_PER_RENDER, i -> {
+            sb.setLength(0);
+            return num.appendGroupedTo(sb);
+        }, ITERATIONS);
+    }
+
+    @Test
+    void allocationPerMaskedRender() {
+        final CardNumber num = CardNumber.of("4111111111111111");
+        final StringBuilder sb = new StringBuilder(32);
+
+        assertAllocation("CardNumber.appendMaskedTo", MAX_BYTES_PER_RENDER, i -> {
+            sb.setLength(0);
+            return num.appendMaskedTo(sb);
+        }, ITERATIONS);
+    }
+
+    @Test
+    void allocationPerRecord() {
+        final CardRecordGenerator records = new CardRecordGenerator(List.of("ALICE SMITH"));
+        final CardRecordBatch batch = new CardRecordBatch(1024);
+        final CardType[] cardTypes = CardType.values();
+
+        // Each call fills a whole batch, so count records rather than calls
+        assertAllocation("CardRecordGenerator.fill", MAX_BYTES_PER_RECORD * batch.capacity(), i -> {
+            records.fill(batch, batch.capacity(), cardTypes);
+            return batch;
+        }, 1000);
+    }
+
+    private void assertAllocation(final String name, final double maxBytes, final IntFunction<Object> work, final int iterations) {
+        // Let the JIT compile the hot path first
+        for (int i = 0; i < iterations; i++) {
+            sink[i & (sink.length - 1)] = work.apply(i);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = THREADS.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < iterations; i++) {
+            sink[i & (sink.length - 1)] = work.apply(i);
+        }
+
+        final double bytesPerCall = (double) (THREADS.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+        System.out.printf("%s:  %.1f bytes allocated per call%n", name, bytesPerCall);
+
+        assertTrue(bytesPerCall <= maxBytes, "%s allocated %.1f bytes per call; the maximum is %.1f".formatted(name, bytesPerCall, maxBytes));
+    }
+}
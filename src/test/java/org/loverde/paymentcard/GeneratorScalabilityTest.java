@@ -0,0 +1,148 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * <p>
+ * Checks that generation scales with threads, at 1, 2, 4 and as many threads as there are processors.  Throughput
+ * depends on the machine and whatever else it's running, so this is tagged {@code scalability} and run on demand by
+ * the {@code scalabilityTest} Gradle task, not by {@code check}.  Each thread count is warmed up, then timed several
+ * times, and the median is compared.
+ * </p>
+ *
+ * <p>
+ * {@code performance.minScalingEfficiency} sets the lowest acceptable ratio of throughput at <i>n</i> threads to
+ * <i>n</i> times the single-threaded throughput, where <i>n</i> is capped at the number of processors.  The processor
+ * count includes hardware threads, which don't double throughput, so the default leaves room for them.
+ * </p>
+ */
+@Tag("scalability")
+class GeneratorScalabilityTest {
+
+    private static final double MIN_SCALING_EFFICIENCY = Double.parseDouble(System.getProperty("performance.minScalingEfficiency", "0.5"));
+
+    private static final int NUMBERS_PER_THREAD = 500_000;
+    private static final int TIMED_RUNS = 5;
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+    private final AtomicLong checksum = new AtomicLong();
+
+
+    @Test
+    void scaling() throws InterruptedException {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final TreeSet<Integer> threadCounts = new TreeSet<>(List.of(1, 2, 4, processors));
+
+        final double singleThreaded = medianThroughput(1);
+
+        for (final int threads : threadCounts.tailSet(2)) {
+            final double throughput = medianThroughput(threads);
+            final double efficiency = throughput / (singleThreaded * Math.min(threads, processors));
+
+            System.out.printf("%d thread(s):  %,.0f numbers/s, scaling efficiency %.2f%n", threads, throughput, efficiency);
+
+            assertTrue(efficiency >= MIN_SCALING_EFFICIENCY,
+                "%d threads reached %.2f of linear scaling; the minimum is %.2f".formatted(threads, efficiency, MIN_SCALING_EFFICIENCY));
+        }
+    }
+
+    /**
+     * @return The median of several timed runs, after an untimed one, in numbers per second across all threads
+     */
+    private double medianThroughput(final int threadCount) throws InterruptedException {
+        run(threadCount);
+
+        final double[] throughputs = new double[TIMED_RUNS];
+
+        for (int i = 0; i < throughputs.length; i++) {
+            throughputs[i] = run(threadCount);
+        }
+
+        Arrays.sort(throughputs);
+
+        return throughputs[throughputs.length / 2];
+    }
+
+    /**
+     * @return Numbers generated per second, across all threads
+     */
+    private double run(final int threadCount) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long lengths = 0;
+
+                for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                    lengths += generator.generateByCardType(CardType.MASTERCARD).length();
+                }
+
+                checksum.addAndGet(lengths);
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        final long startNanos = System.nanoTime();
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        return (double) threadCount * NUMBERS_PER_THREAD / ((System.nanoTime() - startNanos) / 1e9);
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class IssuedNumberLedgerTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IssuedNumberLedger(null, 16));
+        assertThrows(IllegalArgumentException.class, () -> new IssuedNumberLedger(tempDir.resolve("ledger"), 0));
+        assertThrows(IllegalArgumentException.class, () -> new IssuedNumberLedger(tempDir.resolve("ledger"), IssuedNumberLedger.MAX_CAPACITY + 1));
+    }
+
+    @Test
+    void constructor_notALedger() throws IOException {
+        final Path path = tempDir.resolve("numbers.txt");
+        Files.writeString(path, "4111111111111111\n378282246310005\n".repeat(4));
+
+        assertThrows(IOException.class, () -> new IssuedNumberLedger(path, 16));
+    }
+
+    @Test
+    void constructor_roundsCapacityUp() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 100)) {
+            assertEquals(96, ledger.capacity());
+        }
+    }
+
+    @Test
+    void markIssued_duplicate() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 16)) {
+            assertTrue(ledger.markIssued(4111111111111111L));
+            assertFalse(ledger.markIssued(4111111111111111L));
+            assertTrue(ledger.markIssued(CardNumber.of("378282246310005")));
+            assertFalse(ledger.markIssued(CardNumber.of("378282246310005")));
+
+            assertEquals(2, ledger.size());
+        }
+    }
+
+    @Test
+    void markIssued_nineteenDigits() throws IOException {
+        // Larger than Long.MAX_VALUE, so it's negative as a signed value
+        final CardNumber num = CardNumber.of("9999999999999999995");
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 16)) {
+            assertTrue(ledger.markIssued(num));
+            assertTrue(ledger.isIssued(num.getValue()));
+        }
+    }
+
+    @Test
+    void markIssued_invalidArguments() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 16)) {
+            assertThrows(IllegalArgumentException.class, () -> ledger.markIssued(0));
+            assertThrows(IllegalArgumentException.class, () -> ledger.markIssued(-1));
+            assertFalse(ledger.isIssued(-1));
+            assertThrows(IllegalArgumentException.class, () -> ledger.markIssued(null));
+        }
+    }
+
+    @Test
+    void markIssued_full() throws IOException {
+        final Path path = tempDir.resolve("ledger");
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 4)) {
+            assertEquals(3, ledger.capacity());
+
+            for (long i = 1; i <= 3; i++) {
+                assertTrue(ledger.markIssued(i));
+            }
+
+            // A full ledger adds a segment twice the size of the last
+            assertTrue(ledger.markIssued(4));
+            assertEquals(3 + 6, ledger.capacity());
+            assertTrue(Files.exists(tempDir.resolve("ledger.1")));
+
+            // Numbers which are already recorded are still recognized
+            assertFalse(ledger.markIssued(2));
+            assertFalse(ledger.markIssued(4));
+            assertEquals(4, ledger.size());
+        }
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 4)) {
+            assertEquals(3 + 6, ledger.capacity());
+            assertEquals(4, ledger.size());
+            assertTrue(ledger.isIssued(4));
+        }
+    }
+
+    @Test
+    void markIssued_manySegments() throws IOException {
+        final Path path = tempDir.resolve("ledger");
+        final int howMany = 10_000;
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 2)) {
+            for (long i = 1; i <= howMany; i++) {
+                assertTrue(ledger.markIssued(i * 7919));
+            }
+
+            assertEquals(howMany, ledger.size());
+        }
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 2)) {
+            assertEquals(howMany, ledger.size());
+
+            for (long i = 1; i <= howMany; i++) {
+                assertTrue(ledger.isIssued(i * 7919));
+                assertFalse(ledger.markIssued(i * 7919));
+            }
+
+            assertFalse(ledger.isIssued(7918));
+        }
+    }
+
+    @Test
+    void constructor_ignoresStaleSegments() throws IOException {
+        final Path path = tempDir.resolve("ledger");
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 2)) {
+            for (long i = 1; i <= 10; i++) {
+                ledger.markIssued(i);
+            }
+        }
+
+        // Deleting only the first segment starts a new ledger; the old segments mustn't be picked up
+        Files.delete(path);
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 2)) {
+            for (long i = 1; i <= 10; i++) {
+                assertTrue(ledger.markIssued(i));
+            }
+
+            assertEquals(10, ledger.size());
+        }
+    }
+
+    @Test
+    void isIssued() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 16)) {
+            ledger.markIssued(4111111111111111L);
+
+            assertTrue(ledger.isIssued(4111111111111111L));
+            assertFalse(ledger.isIssued(4111111111111112L));
+            assertFalse(ledger.isIssued(0));
+        }
+    }
+
+    @Test
+    void persistsAcrossReopen() throws IOException {
+        final Path path = tempDir.resolve("ledger");
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 1024)) {
+            for (long i = 1; i <= 500; i++) {
+                ledger.markIssued(i * 7919);
+            }
+        }
+
+        // The capacity of an existing ledger is kept
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 16)) {
+            assertEquals(768, ledger.capacity());
+            assertEquals(500, ledger.size());
+
+            for (long i = 1; i <= 500; i++) {
+                assertTrue(ledger.isIssued(i * 7919));
+                assertFalse(ledger.markIssued(i * 7919));
+            }
+
+            assertFalse(ledger.isIssued(7918));
+        }
+    }
+
+    @Test
+    void markIssued_concurrent() throws Exception {
+        final int threadCount = 4;
+        final int howMany = 20_000;
+        final AtomicInteger newlyRecorded = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 1 << 16)) {
+            // Every thread tries to record the same numbers; each number must be claimed exactly once
+            for (int t = 0; t < threadCount; t++) {
+                final Thread thread = new Thread(() -> {
+                    for (long i = 1; i <= howMany; i++) {
+                        if (ledger.markIssued(i)) {
+                            newlyRecorded.incrementAndGet();
+                        }
+                    }
+                });
+
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(howMany, newlyRecorded.get());
+            assertEquals(howMany, ledger.size());
+        }
+    }
+
+    @Test
+    void markIssued_concurrentWhileGrowing() throws Exception {
+        final int threadCount = 4;
+        final int howMany = 20_000;
+        final AtomicInteger newlyRecorded = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 16)) {
+            // The ledger starts far too small, so threads race to add segments as well as to record numbers
+            for (int t = 0; t < threadCount; t++) {
+                final Thread thread = new Thread(() -> {
+                    for (long i = 1; i <= howMany; i++) {
+                        if (ledger.markIssued(i)) {
+                            newlyRecorded.incrementAndGet();
+                        }
+                    }
+                });
+
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(howMany, newlyRecorded.get());
+            assertEquals(howMany, ledger.size());
+        }
+    }
+
+    @Test
+    void markIssued_concurrentDuplicateWhenNearlyFull() throws Exception {
+        final int threadCount = 8;
+
+        for (int trial = 0; trial < 1000; trial++) {
+            final AtomicInteger newlyRecorded = new AtomicInteger();
+            final AtomicInteger failures = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> threads = new ArrayList<>();
+
+            try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger" + trial), 4)) {
+                ledger.markIssued(1);
+                ledger.markIssued(2);
+
+                // There's room for exactly one more number, which every thread tries to record at once
+                for (int t = 0; t < threadCount; t++) {
+                    final Thread thread = new Thread(() -> {
+                        try {
+                            start.await();
+
+                            if (ledger.markIssued(3)) {
+                                newlyRecorded.incrementAndGet();
+                            }
+                        } catch (final InterruptedException | RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    });
+
+                    threads.add(thread);
+                    thread.start();
+                }
+
+                start.countDown();
+
+                for (final Thread thread : threads) {
+                    thread.join();
+                }
+
+                assertEquals(0, failures.get());
+                assertEquals(1, newlyRecorded.get());
+                assertEquals(3, ledger.size());
+            }
+        }
+    }
+
+    @Test
+    void generator_nullLedger() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentCardGeneratorImpl((IssuedNumberLedger) null));
+    }
+
+    @Test
+    void generator_skipsIssuedNumbers() throws IOException {
+        final Path path = tempDir.resolve("ledger");
+        final Set<String> issued = new HashSet<>();
+
+        // A two-digit prefix and a length of four leave room for only ten numbers
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 64)) {
+            final PaymentCardGenerator generator = new PaymentCardGeneratorImpl(ledger);
+            issued.addAll(generator.generateByPrefix(5, Set.of(4), Set.of(42L)).get(42L));
+        }
+
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(path, 64)) {
+            final PaymentCardGenerator generator = new PaymentCardGeneratorImpl(ledger);
+            final Map<Long, List<String>> more = generator.generateByPrefix(4, Set.of(4), Set.of(42L));
+
+            for (final String num : more.get(42L)) {
+                assertTrue(issued.add(num), num + " was issued twice");
+            }
+
+            assertEquals(9, ledger.size());
+        }
+    }
+
+    @Test
+    void generator_exhausted() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 64)) {
+            final PaymentCardGenerator generator = new PaymentCardGeneratorImpl(ledger);
+
+            assertThrows(IllegalStateException.class, () -> generator.generateByPrefix(11, Set.of(4), Set.of(42L)));
+        }
+    }
+
+    @Test
+    void generator_cardNumber() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 64)) {
+            final CardNumber num = new PaymentCardGeneratorImpl(ledger).generateCardNumberByCardType(CardType.VISA);
+
+            assertTrue(ledger.isIssued(num.getValue()));
+        }
+    }
+
+    @Test
+    void generator_tooLong() throws IOException {
+        try (final IssuedNumberLedger ledger = new IssuedNumberLedger(tempDir.resolve("ledger"), 64)) {
+            final PaymentCardGenerator generator = new PaymentCardGeneratorImpl(ledger);
+
+            assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefix(1, Set.of(20), Set.of(42L)));
+        }
+    }
+}
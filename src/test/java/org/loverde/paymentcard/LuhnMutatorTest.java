@@ -0,0 +1,212 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class LuhnMutatorTest {
+
+    private static final String SEED = "4111111111111111";
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator("", 0));
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator("4111111111111112", 1));
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator("4111-1111", 1));
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator(SEED, -1));
+        assertThrows(IllegalArgumentException.class, () -> new LuhnMutator(SEED, 15));
+    }
+
+    @Test
+    void setDigit() {
+        final LuhnMutator mutator = new LuhnMutator(SEED, 1);
+
+        for (int index = 1; index < SEED.length() - 1; index++) {
+            for (int digit = 0; digit <= 9; digit++) {
+                mutator.setDigit(index, digit);
+
+                assertEquals((char) ('0' + digit), mutator.charAt(index));
+                assertTrue(generator.passesLuhnCheck(mutator.toString()), mutator.toString());
+            }
+        }
+    }
+
+    @Test
+    void setDigit_invalidArguments() {
+        final LuhnMutator mutator = new LuhnMutator(SEED, 6);
+
+        assertThrows(IllegalArgumentException.class, () -> mutator.setDigit(5, 0));
+        assertThrows(IllegalArgumentException.class, () -> mutator.setDigit(15, 0));
+        assertThrows(IllegalArgumentException.class, () -> mutator.setDigit(6, 10));
+        assertThrows(IllegalArgumentException.class, () -> mutator.setDigit(6, -1));
+    }
+
+    @Test
+    void mutate_changesOneBodyDigit() {
+        final LuhnMutator mutator = new LuhnMutator(SEED, 6);
+        String previous = mutator.toString();
+
+        for (int i = 0; i < 10_000; i++) {
+            mutator.mutate();
+
+            final String current = mutator.toString();
+
+            assertTrue(generator.passesLuhnCheck(current), current);
+            assertTrue(current.startsWith("411111"), current);
+            assertEquals(1, bodyDifferences(previous, current), previous + " -> " + current);
+
+            previous = current;
+        }
+    }
+
+    @Test
+    void randomWalk_everyLength() {
+        for (final CardType cardType : CardType.values()) {
+            for (final String seed : generator.generateListByCardType(20, cardType)) {
+                final LuhnMutator mutator = new LuhnMutator(seed, 1);
+
+                for (int i = 0; i < 100; i++) {
+                    mutator.reset();
+                    mutator.randomWalk(5);
+
+                    assertEquals(seed.length(), mutator.length());
+                    assertTrue(generator.passesLuhnCheck(mutator.toString()), mutator.toString());
+                    assertTrue(bodyDifferences(seed, mutator.toString()) <= 5);
+                }
+            }
+        }
+    }
+
+    @Test
+    void reset() {
+        final LuhnMutator mutator = new LuhnMutator(SEED, 0);
+
+        mutator.randomWalk(10);
+        mutator.reset();
+
+        assertEquals(SEED, mutator.toString());
+
+        // The running sum is restored too, so edits after a reset are still valid
+        mutator.mutate();
+        assertTrue(generator.passesLuhnCheck(mutator.toString()));
+    }
+
+    @Test
+    void forEachSingleDigitNeighbor() {
+        final LuhnMutator mutator = new LuhnMutator(SEED, 6);
+        final Set<String> neighbors = new HashSet<>();
+
+        mutator.forEachSingleDigitNeighbor(neighbor -> {
+            final String num = neighbor.toString();
+
+            assertTrue(generator.passesLuhnCheck(num), num);
+            assertEquals(1, bodyDifferences(SEED, num), num);
+
+            neighbors.add(num);
+        });
+
+        assertEquals(9 * 9, neighbors.size());
+        assertEquals(SEED, mutator.toString());
+    }
+
+    @Test
+    void seededRandom_reproducible() {
+        final LuhnMutator first = new LuhnMutator(SEED, 6, new SplittableRandom(3));
+        final LuhnMutator second = new LuhnMutator(SEED, 6, new SplittableRandom(3));
+
+        for (int i = 0; i < 100; i++) {
+            first.randomWalk(2);
+            second.randomWalk(2);
+
+            assertEquals(first.toString(), second.toString());
+        }
+    }
+
+    @Test
+    void copyTo_and_toCardNumber() {
+        final LuhnMutator mutator = new LuhnMutator("6221260000000000001", 6);
+        final byte[] dst = new byte[21];
+
+        mutator.mutate();
+        mutator.copyTo(dst, 1);
+
+        assertEquals(mutator.toString(), new String(dst, 1, 19, StandardCharsets.US_ASCII));
+
+        final CardNumber num = mutator.toCardNumber();
+
+        assertEquals(mutator.toString(), num.toString());
+        assertEquals(CardType.DISCOVER, num.getCardType());
+        assertTrue(num.passesLuhnCheck());
+    }
+
+    @Test
+    void longerThanCardNumber() {
+        final String seed = generator.generateByPrefix(1, Set.of(24), Set.of(9L)).get(9L).get(0);
+        final LuhnMutator mutator = new LuhnMutator(seed, 1);
+
+        mutator.randomWalk(50);
+
+        assertTrue(generator.passesLuhnCheck(mutator.toString()));
+        assertThrows(IllegalArgumentException.class, mutator::toCardNumber);
+    }
+
+    /**
+     * @return How many digits other than the check digit differ
+     */
+    private static int bodyDifferences(final String a, final String b) {
+        int differences = 0;
+
+        for (int i = 0; i < a.length() - 1; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                differences++;
+            }
+        }
+
+        return differences;
+    }
+}
@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -91,6 +93,37 @@ class PaymentCardGeneratorTest {
         validateCardNumber(cardType, cardNum);
     }
 
+    @Test
+    void generateCardNumberByCardType_null() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateCardNumberByCardType(null));
+    }
+
+    @Test
+    void generateCardNumberByCardType() {
+        for (final CardType cardType : CardType.values()) {
+            for (int i = 0; i < HOW_MANY_OF_EACH; i++) {
+                final CardNumber cardNum = generator.generateCardNumberByCardType(cardType);
+
+                assertEquals(cardType, cardNum.getCardType());
+                assertTrue(cardNum.passesLuhnCheck(), "Card number " + cardNum + " doesn't pass Luhn validation");
+                assertEquals(cardType, CardNumber.of(cardNum.toString()).getCardType());
+                validateCardNumber(cardType, cardNum.toString());
+            }
+        }
+    }
+
+    @Test
+    void generateCardNumberByCardType_default() {
+        final PaymentCardGenerator minimal = new MinimalGenerator();
+
+        for (final CardType cardType : CardType.values()) {
+            final CardNumber cardNum = minimal.generateCardNumberByCardType(cardType);
+
+            assertEquals(cardType, cardNum.getCardType());
+            validateCardNumber(cardType, cardNum.toString());
+        }
+    }
+
     @Test
     void generateListByCardType_null() {
         assertThrows(IllegalArgumentException.class, () -> generator.generateListByCardType(2, null));
@@ -325,6 +358,132 @@ class PaymentCardGeneratorTest {
         }
     }
 
+    @Test
+    void generateByPrefixRange_makeZero() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(0, Set.of(16), List.of(new Range(4, 4))));
+    }
+
+    @Test
+    void generateByPrefixRange_nullRanges() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), (List<Range>) null));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), (Map<Range, Double>) null));
+    }
+
+    @Test
+    void generateByPrefixRange_emptyRanges() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), Map.of()));
+    }
+
+    @Test
+    void generateByPrefixRange_invalidLengths() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, null, List.of(new Range(4, 4))));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(1), List.of(new Range(4, 4))));
+    }
+
+    @Test
+    void generateByPrefixRange_nonPositivePrefix() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), List.of(new Range(0, 5))));
+    }
+
+    @Test
+    void generateByPrefixRange_noRoomForCheckDigit() {
+        // The range fits the longer length, but not the shorter one
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(4, 16), List.of(new Range(100, 1000))));
+    }
+
+    @Test
+    void generateByPrefixRange_invalidWeight() {
+        final Range range = new Range(4, 4);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), Map.of(range, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), Map.of(range, -1.0)));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), Map.of(range, Double.NaN)));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateByPrefixRange(1, Set.of(16), Map.of(range, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    void generateByPrefixRange_cardTypeRanges() {
+        for (final CardType cardType : CardType.values()) {
+            final List<String> cards = generator.generateByPrefixRange(HOW_MANY_OF_EACH, cardType.getLengths(), cardType.getRanges());
+
+            assertEquals(HOW_MANY_OF_EACH, cards.size());
+
+            for (final String num : cards) {
+                validateCardNumber(cardType, num);
+            }
+        }
+    }
+
+    @Test
+    void generateByPrefixRange_millionsOfPrefixes() {
+        final Range range = new Range(100_000_000, 999_999_999);
+        final List<String> cards = generator.generateByPrefixRange(HOW_MANY_OF_EACH, Set.of(16, 19), List.of(range));
+
+        assertEquals(HOW_MANY_OF_EACH, cards.size());
+
+        for (final String num : cards) {
+            final long prefix = Long.parseLong(num.substring(0, 9));
+
+            assertTrue(prefix >= range.start() && prefix <= range.end(), "Card number " + num + " is outside of the range");
+            assertTrue(num.length() == 16 || num.length() == 19, "Card number " + num + " has an invalid length");
+            assertTrue(generator.passesLuhnCheck(num), "Card number " + num + " doesn't pass Luhn validation");
+        }
+    }
+
+    @Test
+    void generateByPrefixRange_weighted() {
+        final int howMany = 10_000;
+        final Map<Range, Double> weightedRanges = Map.of(
+            new Range(51, 55), 9.0,
+            new Range(2221, 2720), 1.0);
+
+        final List<String> cards = generator.generateByPrefixRange(howMany, Set.of(16), weightedRanges);
+        final long fromFirstRange = cards.stream().filter(num -> num.charAt(0) == '5').count();
+
+        // Expected 9000; the bounds are more than ten standard deviations away
+        assertTrue(fromFirstRange > 8700 && fromFirstRange < 9300, "Weighting was not honored:  " + fromFirstRange + " of " + howMany);
+    }
+
+    @Test
+    void generateByPrefixRange_default() {
+        final PaymentCardGenerator minimal = new MinimalGenerator();
+        final Range range = new Range(2221, 2720);
+        final List<String> cards = minimal.generateByPrefixRange(HOW_MANY_OF_EACH, Set.of(16), List.of(new Range(51, 55), range));
+
+        assertEquals(HOW_MANY_OF_EACH, cards.size());
+
+        for (final String num : cards) {
+            validateCardNumber(CardType.MASTERCARD, num);
+        }
+
+        final List<String> weighted = minimal.generateByPrefixRange(HOW_MANY_OF_EACH, Set.of(16), Map.of(new Range(51, 55), 1.0, range, 0.0001));
+
+        assertEquals(HOW_MANY_OF_EACH, weighted.size());
+        assertThrows(IllegalArgumentException.class, () -> minimal.generateByPrefixRange(1, Set.of(16), Map.of(range, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> minimal.generateByPrefixRange(1, Set.of(3), List.of(range)));
+
+        // Same checks as PaymentCardGeneratorImpl:  generateByPrefix alone would accept these
+        assertThrows(IllegalArgumentException.class, () -> minimal.generateByPrefixRange(3, Set.of(3), List.of(new Range(100, 999))));
+        assertThrows(IllegalArgumentException.class, () -> minimal.generateByPrefixRange(1, Set.of(16), List.of(new Range(0, 5))));
+        assertThrows(IllegalArgumentException.class, () -> minimal.generateByPrefixRange(1, Set.of(16), List.of()));
+    }
+
+    @Test
+    void generateCardNumbersByPrefixRange() {
+        final PaymentCardGeneratorImpl impl = new PaymentCardGeneratorImpl();
+        final List<CardNumber> cards = impl.generateCardNumbersByPrefixRange(HOW_MANY_OF_EACH, CardType.MASTERCARD.getLengths(), CardType.MASTERCARD.getRanges());
+
+        assertEquals(HOW_MANY_OF_EACH, cards.size());
+
+        for (final CardNumber num : cards) {
+            assertEquals(CardType.MASTERCARD, num.getCardType());
+            validateCardNumber(CardType.MASTERCARD, num.toString());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> impl.generateCardNumbersByPrefixRange(1, Set.of(20), List.of(new Range(4, 4))));
+    }
+
     @Test
     void passesLuhnCheck() {
         assertTrue(generator.passesLuhnCheck("378282246310005"));
@@ -336,6 +495,61 @@ class PaymentCardGeneratorTest {
         assertFalse(generator.passesLuhnCheck("411111111111111"));
     }
 
+    @Test
+    void passesLuhnCheck_invalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> generator.passesLuhnCheck(null));
+        assertThrows(IllegalArgumentException.class, () -> generator.passesLuhnCheck(""));
+        assertThrows(IllegalArgumentException.class, () -> generator.passesLuhnCheck("4111 1111 1111 1111"));
+    }
+
+    @Test
+    void seededRandom_reproducible() {
+        final PaymentCardGenerator first = new PaymentCardGeneratorImpl(new SplittableRandom(42));
+        final PaymentCardGenerator second = new PaymentCardGeneratorImpl(new SplittableRandom(42));
+
+        assertEquals(first.generateListByCardType(HOW_MANY_OF_EACH, CardType.VISA), second.generateListByCardType(HOW_MANY_OF_EACH, CardType.VISA));
+        assertEquals(first.generateCardNumberByCardType(CardType.DISCOVER), second.generateCardNumberByCardType(CardType.DISCOVER));
+        assertEquals(first.generateByPrefix(HOW_MANY_OF_EACH, Set.of(16, 19), Set.of(4L)), second.generateByPrefix(HOW_MANY_OF_EACH, Set.of(16, 19), Set.of(4L)));
+        assertEquals(
+            first.generateByPrefixRange(HOW_MANY_OF_EACH, Set.of(16), List.of(new Range(51, 55), new Range(2221, 2720))),
+            second.generateByPrefixRange(HOW_MANY_OF_EACH, Set.of(16), List.of(new Range(51, 55), new Range(2221, 2720))));
+    }
+
+    @Test
+    void generate_everyDigitAppears() {
+        // The digits between the prefix and the check digit are random, so each of them should take every value
+        final boolean[][] seen = new boolean[14][10];
+
+        for (final String cardNum : generator.generateListByCardType(2000, CardType.VISA)) {
+            if (cardNum.length() == 16) {
+                for (int i = 0; i < seen.length; i++) {
+                    seen[i][cardNum.charAt(i + 1) - '0'] = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < seen.length; i++) {
+            for (int digit = 0; digit <= 9; digit++) {
+                assertTrue(seen[i][digit], "Digit %d never appeared at position %d".formatted(digit, i + 1));
+            }
+        }
+
+        final boolean[] seenInCardNumbers = new boolean[10];
+
+        for (int i = 0; i < 1000; i++) {
+            seenInCardNumbers[generator.generateCardNumberByCardType(CardType.MASTERCARD).digitAt(10)] = true;
+        }
+
+        for (int digit = 0; digit <= 9; digit++) {
+            assertTrue(seenInCardNumbers[digit], "Digit %d never appeared".formatted(digit));
+        }
+    }
+
+    @Test
+    void seededRandom_null() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentCardGeneratorImpl((RandomGenerator) null));
+    }
+
     private void validateCardNumber(final CardType cardType, final String cardNum) {
         validateCardNumber(cardType.getLengths(), cardType.getPrefixes(), cardNum);
     }
@@ -355,4 +569,37 @@ class PaymentCardGeneratorTest {
 
         assertTrue(validPrefix, "Card number " + cardNum + " has an invalid prefix");
     }
+
+    /**
+     * Implements only the abstract methods, the way a generator written against an earlier version would,
+     * so that the interface's default methods are exercised
+     */
+    private static class MinimalGenerator implements PaymentCardGenerator {
+        private final PaymentCardGenerator delegate = new PaymentCardGeneratorImpl();
+
+        @Override
+        public String generateByCardType(final CardType cardType) {
+            return delegate.generateByCardType(cardType);
+        }
+
+        @Override
+        public List<String> generateListByCardType(final int howMany, final CardType cardType) {
+            return delegate.generateListByCardType(howMany, cardType);
+        }
+
+        @Override
+        public Map<CardType, List<String>> generateMapByCardTypes(final int howManyOfEach, final CardType... cardTypes) {
+            return delegate.generateMapByCardTypes(howManyOfEach, cardTypes);
+        }
+
+        @Override
+        public Map<Long, List<String>> generateByPrefix(final int howManyOfEachPrefix, final Set<Integer> lengths, final Set<Long> prefixes) {
+            return delegate.generateByPrefix(howManyOfEachPrefix, lengths, prefixes);
+        }
+
+        @Override
+        public boolean passesLuhnCheck(final String num) {
+            return delegate.passesLuhnCheck(num);
+        }
+    }
 }
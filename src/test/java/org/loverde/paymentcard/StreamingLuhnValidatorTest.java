@@ -0,0 +1,183 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class StreamingLuhnValidatorTest {
+
+    private final PaymentCardGenerator generator = new PaymentCardGeneratorImpl();
+
+
+    @Test
+    void constructor_nullListener() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingLuhnValidator(null));
+    }
+
+    @Test
+    void accept_outOfBounds() {
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator();
+
+        assertThrows(IllegalArgumentException.class, () -> validator.accept(new byte[4], 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> validator.accept((byte[]) null, 0, 0));
+    }
+
+    @Test
+    void accept_results() {
+        final List<LuhnResult> results = new ArrayList<>();
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator((index, result) -> {
+            assertEquals(results.size(), index);
+            results.add(result);
+        });
+
+        final byte[] input = "378282246310005\n378282246310004\r\n\n4111-1111\n12\r34\n6011111111111117".getBytes(StandardCharsets.US_ASCII);
+
+        validator.accept(input, 0, input.length);
+        assertEquals(5, results.size(), "The last line has no line ending, so it isn't reported until finish()");
+
+        validator.finish();
+
+        assertEquals(List.of(LuhnResult.PASSED, LuhnResult.FAILED, LuhnResult.MALFORMED, LuhnResult.MALFORMED, LuhnResult.MALFORMED, LuhnResult.PASSED), results);
+        assertEquals(new LuhnCounts(2, 1, 3), validator.getCounts());
+    }
+
+    @Test
+    void accept_oneByteAtATime() {
+        final byte[] input = "378282246310005\r\n6011111111111117\n".getBytes(StandardCharsets.US_ASCII);
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator();
+
+        for (int i = 0; i < input.length; i++) {
+            validator.accept(input, i, 1);
+        }
+
+        validator.finish();
+
+        assertEquals(new LuhnCounts(2, 0, 0), validator.getCounts());
+    }
+
+    @Test
+    void accept_randomChunksMatchBatchValidation() {
+        final SplittableRandom random = new SplittableRandom(42);
+        final List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            final String num = generator.generateByCardType(CardType.values()[i % CardType.values().length]);
+
+            switch (random.nextInt(4)) {
+                case 0 -> lines.add(num.substring(0, num.length() - 1) + (char) ('0' + random.nextInt(10)));
+                case 1 -> lines.add(random.nextInt(8) == 0 ? num.substring(0, 3) + "x" + num.substring(4) : num.substring(0, 1 + random.nextInt(num.length())));
+                default -> lines.add(num);
+            }
+        }
+
+        final byte[] input = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.US_ASCII);
+        final List<LuhnResult> results = new ArrayList<>();
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator((index, result) -> results.add(result));
+
+        for (int pos = 0; pos < input.length; ) {
+            final int chunk = Math.min(input.length - pos, 1 + random.nextInt(64));
+
+            validator.accept(ByteBuffer.wrap(input, pos, chunk));
+            pos += chunk;
+        }
+
+        validator.finish();
+
+        final LuhnBatchResult expected = new BatchLuhnValidator().validate(lines);
+
+        assertEquals(lines.size(), results.size());
+        assertEquals(expected.counts(), validator.getCounts());
+
+        for (int i = 0; i < lines.size(); i++) {
+            final LuhnResult expectedResult = expected.passed().get(i) ? LuhnResult.PASSED : expected.malformed().get(i) ? LuhnResult.MALFORMED : LuhnResult.FAILED;
+            assertEquals(expectedResult, results.get(i), lines.get(i));
+        }
+    }
+
+    @Test
+    void accept_directBuffer() {
+        final byte[] input = "378282246310005\n378282246310004\n".getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(input.length).put(input).flip();
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator();
+
+        validator.accept(direct);
+
+        assertEquals(0, direct.remaining());
+        assertEquals(new LuhnCounts(1, 1, 0), validator.getCounts());
+    }
+
+    @Test
+    void accept_veryLongLine() {
+        final StreamingLuhnValidator validator = new StreamingLuhnValidator();
+        final byte[] nines = new byte[1 << 20];
+        Arrays.fill(nines, (byte) '9');
+
+        for (int i = 0; i < 32; i++) {
+            validator.accept(nines, 0, nines.length);
+        }
+
+        validator.accept("0\n".getBytes(StandardCharsets.US_ASCII), 0, 2);
+
+        // A nine contributes 9 whether or not it's doubled, so the sum is 9 * 2^25 = 301989888, which fails
+        assertEquals(new LuhnCounts(0, 1, 0), validator.getCounts());
+    }
+
+    @Test
+    void validate_inputStream() throws IOException {
+        final byte[] input = "378282246310005\n4111111111111111\n411111111111111\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(new LuhnCounts(2, 1, 0), new StreamingLuhnValidator().validate(new ByteArrayInputStream(input)));
+    }
+
+    @Test
+    void validate_channel() throws IOException {
+        final byte[] input = "378282246310005\n4111111111111111\nabc".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(new LuhnCounts(2, 0, 1), new StreamingLuhnValidator().validate(Channels.newChannel(new ByteArrayInputStream(input))));
+    }
+}
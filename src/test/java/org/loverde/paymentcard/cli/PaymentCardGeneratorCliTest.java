@@ -0,0 +1,176 @@
+/*
+ * PaymentCardGenerator
+ * https://www.github.com/kloverde/java-PaymentCardGenerator
+ *
+ * Copyright (c) 2016 Kurtis LoVerde
+ * All rights reserved
+ *
+ * Donations:  https://paypal.me/KurtisLoVerde/5
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     1. Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *     2. Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *     3. Neither the name of the copyright holder nor the names of its
+ *        contributors may be used to endorse or promote products derived from
+ *        this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.loverde.paymentcard.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.loverde.paymentcard.CardNumber;
+import org.loverde.paymentcard.CardNumberFileReader;
+import org.loverde.paymentcard.CardType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class PaymentCardGeneratorCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+
+    @Test
+    void text() {
+        assertEquals(0, run("--count", "1000", "--types", "visa,american_express", "--report-interval", "0"));
+
+        final String[] lines = stdout.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(1000, lines.length);
+
+        for (final String line : lines) {
+            final CardNumber num = CardNumber.of(line);
+
+            assertTrue(num.passesLuhnCheck(), line);
+            assertTrue(num.getCardType() == CardType.VISA || num.getCardType() == CardType.AMERICAN_EXPRESS, line);
+        }
+
+        assertEquals("", stderr.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csv_ranges() {
+        assertEquals(0, run("-n", "50", "-r", "51-55,400000-400099", "-l", "16", "-f", "csv", "-i", "0"));
+
+        final String[] lines = stdout.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(51, lines.length);
+        assertEquals("number,card_type", lines[0]);
+
+        for (int i = 1; i < lines.length; i++) {
+            final String[] fields = lines[i].split(",", -1);
+            final CardNumber num = CardNumber.of(fields[0]);
+
+            assertEquals(16, num.length());
+            assertEquals(num.getCardType() == null ? "" : num.getCardType().name(), fields[1]);
+        }
+    }
+
+    @Test
+    void seed_sameOutputRegardlessOfThreads() {
+        final int count = PaymentCardGeneratorCli.BLOCK_SIZE * 3 + 17;
+
+        assertEquals(0, run("-n", String.valueOf(count), "-s", "42", "-j", "1", "-i", "0"));
+        final byte[] singleThreaded = stdout.toByteArray();
+
+        stdout.reset();
+        assertEquals(0, run("-n", String.valueOf(count), "-s", "42", "-j", "4", "-i", "0"));
+
+        assertArrayEquals(singleThreaded, stdout.toByteArray());
+
+        stdout.reset();
+        assertEquals(0, run("-n", String.valueOf(count), "-s", "43", "-j", "4", "-i", "0"));
+
+        assertFalse(Arrays.equals(singleThreaded, stdout.toByteArray()));
+    }
+
+    @Test
+    void binary() throws IOException {
+        final Path path = tempDir.resolve("fixture.pcg");
+
+        assertEquals(0, run("-n", "20000", "-t", "MASTERCARD", "-f", "binary", "-o", path.toString(), "-j", "2"));
+
+        try (final CardNumberFileReader reader = new CardNumberFileReader(path)) {
+            assertEquals(20000, reader.size());
+            assertEquals(20000, reader.getCardTypeCounts().get(CardType.MASTERCARD).longValue());
+        }
+
+        // The final progress report
+        assertTrue(stderr.toString(StandardCharsets.UTF_8).contains("20,000 numbers"), stderr.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void textToFile() throws IOException {
+        final Path path = tempDir.resolve("numbers.txt");
+
+        assertEquals(0, run("-n", "10", "-o", path.toString(), "-i", "0"));
+
+        assertEquals(10, Files.readAllLines(path).size());
+        assertEquals(0, stdout.size());
+    }
+
+    @Test
+    void invalidArguments() {
+        assertEquals(2, run());
+        assertEquals(2, run("-n", "0"));
+        assertEquals(2, run("-n", "ten"));
+        assertEquals(2, run("-n", "10", "-t", "DINERS"));
+        assertEquals(2, run("-n", "10", "-r", "51-55"));
+        assertEquals(2, run("-n", "10", "-l", "16"));
+        assertEquals(2, run("-n", "10", "-t", "VISA", "-r", "51-55", "-l", "16"));
+        assertEquals(2, run("-n", "10", "-r", "55-51", "-l", "16"));
+        assertEquals(2, run("-n", "10", "-f", "xml"));
+        assertEquals(2, run("-n", "10", "-f", "binary"));
+        assertEquals(2, run("-n", "10", "--bogus", "1"));
+
+        assertTrue(stderr.toString(StandardCharsets.UTF_8).contains("Usage:"));
+        assertEquals(0, stdout.size());
+    }
+
+    @Test
+    void generationFails() {
+        // The range leaves no room for a check digit
+        assertEquals(1, run("-n", "10", "-r", "1000-1999", "-l", "4", "-i", "0"));
+        assertTrue(stderr.toString(StandardCharsets.UTF_8).startsWith("Error:"));
+    }
+
+    @Test
+    void help() {
+        assertEquals(0, run("--help"));
+        assertTrue(stderr.toString(StandardCharsets.UTF_8).startsWith("Usage:"));
+    }
+
+    private int run(final String... args) {
+        return PaymentCardGeneratorCli.run(args, stdout, new PrintStream(stderr, true, StandardCharsets.UTF_8));
+    }
+}
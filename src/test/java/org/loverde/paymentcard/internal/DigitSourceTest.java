@@ -0,0 +1,102 @@
+package org.loverde.paymentcard.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class DigitSourceTest {
+
+    @Test
+    void draw_rejectsValuesWhichWouldBias() {
+        // The first output is above 9 * 10^18 once shifted, so it must be discarded in favor of the second
+        final RandomGenerator random = sequence(-1L, 1234L << 1);
+
+        assertEquals(1234L, DigitSource.draw(random));
+    }
+
+    @Test
+    void draw_belowRange() {
+        final RandomGenerator random = new SplittableRandom(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            final long digits = DigitSource.draw(random);
+            assertTrue(digits >= 0 && digits < 1_000_000_000_000_000_000L);
+        }
+    }
+
+    @Test
+    void append() {
+        final RandomGenerator random = sequence(123456789012345678L << 1);
+
+        assertEquals(4_5678L, DigitSource.append(random, 4, 4));
+        assertEquals(42L, DigitSource.append(random, 42, 0));
+    }
+
+    @Test
+    void fill_everyLength() {
+        final RandomGenerator random = sequence(123456789012345678L << 1);
+
+        for (int length = 0; length <= 40; length++) {
+            final byte[] dst = new byte[length + 2];
+            Arrays.fill(dst, (byte) 'x');
+
+            DigitSource.fill(random, dst, 1, length + 1);
+
+            assertEquals('x', dst[0]);
+            assertEquals('x', dst[length + 1]);
+
+            // The draws repeat, so the digits are the draw's, right-aligned for the partial block at the end
+            final String expected = "123456789012345678".repeat(length / 18) + "123456789012345678".substring(18 - length % 18);
+            assertEquals(expected, new String(dst, 1, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void fill_uniformDigits() {
+        final RandomGenerator random = new SplittableRandom(42);
+        final byte[] dst = new byte[19];
+        final long[][] counts = new long[dst.length][10];
+        final int iterations = 200_000;
+
+        for (int i = 0; i < iterations; i++) {
+            DigitSource.fill(random, dst, 0, dst.length);
+
+            for (int position = 0; position < dst.length; position++) {
+                counts[position][dst[position] - '0']++;
+            }
+        }
+
+        for (int position = 0; position < dst.length; position++) {
+            // Chi-squared with 9 degrees of freedom; 33.7 is the 0.9999 quantile
+            double chiSquared = 0;
+            final double expected = iterations / 10.0;
+
+            for (final long count : counts[position]) {
+                chiSquared += (count - expected) * (count - expected) / expected;
+            }
+
+            assertTrue(chiSquared < 33.7, "Digits at position %d aren't uniform:  %s".formatted(position, Arrays.toString(counts[position])));
+        }
+    }
+
+    /**
+     * @return A generator which returns the given values from {@code nextLong}, repeating the last one
+     */
+    private static RandomGenerator sequence(final long... values) {
+        return new RandomGenerator() {
+            private int next;
+
+            @Override
+            public long nextLong() {
+                return values[Math.min(next++, values.length - 1)];
+            }
+        };
+    }
+}
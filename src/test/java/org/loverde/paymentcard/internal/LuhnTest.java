@@ -0,0 +1,131 @@
+package org.loverde.paymentcard.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * Verifies the eight-digits-at-a-time sums against the scalar reference implementation.
+ */
+class LuhnTest {
+
+    private static final int[] CARD_LENGTHS = { 13, 15, 16, 19 };
+
+    private final SplittableRandom random = new SplittableRandom(20240410L);
+
+
+    @Test
+    void sum_everyEightDigitBlock() {
+        final byte[] block = "00000000".getBytes(StandardCharsets.US_ASCII);
+
+        for (int n = 0; n < 100_000_000; n++) {
+            for (final boolean doubleRightmost : new boolean[] { true, false }) {
+                final int expected = Luhn.scalarSum(block, 0, 8, doubleRightmost);
+                assertEquals(expected, Luhn.sum(block, 0, 8, doubleRightmost));
+            }
+
+            // Odometer increment, so that no text is formatted per iteration
+            for (int i = 7; i >= 0 && ++block[i] > '9'; i--) {
+                block[i] = '0';
+            }
+        }
+    }
+
+    @Test
+    void sum_randomCardLengths() {
+        for (final int length : CARD_LENGTHS) {
+            for (int n = 0; n < 100_000; n++) {
+                assertSumsAgree(randomDigits(length));
+            }
+        }
+    }
+
+    @Test
+    void sum_randomOtherLengths() {
+        for (int length = 1; length <= 64; length++) {
+            for (int n = 0; n < 1_000; n++) {
+                assertSumsAgree(randomDigits(length));
+            }
+        }
+    }
+
+    @Test
+    void sum_everyByteInEveryPosition() {
+        for (final int length : CARD_LENGTHS) {
+            final String digits = randomDigits(length);
+
+            for (int pos = 0; pos < length; pos++) {
+                for (int b = 0; b <= 0xFF; b++) {
+                    final byte[] bytes = digits.getBytes(StandardCharsets.US_ASCII);
+                    bytes[pos] = (byte) b;
+
+                    for (final boolean doubleRightmost : new boolean[] { true, false }) {
+                        assertEquals(Luhn.scalarSum(bytes, 0, length, doubleRightmost), Luhn.sum(bytes, 0, length, doubleRightmost), "Byte %d at %d".formatted(b, pos));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void sum_offsetWithinArray() {
+        for (final int length : CARD_LENGTHS) {
+            for (int offset = 0; offset < 16; offset++) {
+                final String padded = "x".repeat(offset) + randomDigits(length) + "x";
+                final byte[] bytes = padded.getBytes(StandardCharsets.US_ASCII);
+
+                for (final boolean doubleRightmost : new boolean[] { true, false }) {
+                    assertEquals(Luhn.scalarSum(bytes, offset, offset + length, doubleRightmost), Luhn.sum(bytes, offset, offset + length, doubleRightmost));
+                }
+            }
+        }
+    }
+
+    @Test
+    void sum_matchesLongArithmetic() {
+        for (final int length : CARD_LENGTHS) {
+            for (int n = 0; n < 10_000; n++) {
+                final String digits = randomDigits(length);
+                final long value = Long.parseUnsignedLong(digits);
+
+                assertEquals(Luhn.sum(value, length, true), Luhn.sum(digits, 0, length - 1, true));
+                assertEquals(Luhn.sum(value, length, false), Luhn.sum(digits, 0, length, true));
+            }
+        }
+    }
+
+    @Test
+    void check() {
+        assertEquals(Luhn.PASSED, Luhn.check("378282246310005"));
+        assertEquals(Luhn.PASSED, Luhn.check("6221260000000000001"));
+        assertEquals(Luhn.FAILED, Luhn.check("378282246310004"));
+        assertEquals(Luhn.MALFORMED, Luhn.check("37828224631000x"));
+        assertEquals(Luhn.MALFORMED, Luhn.check(""));
+        assertEquals(Luhn.MALFORMED, Luhn.check(null));
+    }
+
+    private void assertSumsAgree(final String digits) {
+        final byte[] bytes = digits.getBytes(StandardCharsets.US_ASCII);
+
+        for (final boolean doubleRightmost : new boolean[] { true, false }) {
+            final int expected = Luhn.scalarSum(bytes, 0, bytes.length, doubleRightmost);
+
+            assertEquals(expected, Luhn.sum(digits, 0, digits.length(), doubleRightmost), digits);
+            assertEquals(expected, Luhn.sum(bytes, 0, bytes.length, doubleRightmost), digits);
+        }
+    }
+
+    private String randomDigits(final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+
+        return sb.toString();
+    }
+}
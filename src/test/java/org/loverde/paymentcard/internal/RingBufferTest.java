@@ -0,0 +1,116 @@
+package org.loverde.paymentcard.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class RingBufferTest {
+
+    @Test
+    void constructor_invalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    }
+
+    @Test
+    void capacity_roundedUpToPowerOfTwo() {
+        assertEquals(1, new RingBuffer<>(1).capacity());
+        assertEquals(8, new RingBuffer<>(8).capacity());
+        assertEquals(16, new RingBuffer<>(9).capacity());
+    }
+
+    @Test
+    void offerAndPoll_fifo() {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(4);
+
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(i));
+            }
+
+            assertFalse(buffer.offer(99), "Buffer should be full");
+            assertEquals(4, buffer.size());
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), buffer.poll());
+            }
+
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void offerAndPoll_concurrent() throws Exception {
+        final int producers = 2;
+        final int consumers = 3;
+        final int perProducer = 100_000;
+
+        final RingBuffer<Long> buffer = new RingBuffer<>(64);
+        final ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        final AtomicLong consumedSum = new AtomicLong();
+        final AtomicLong consumedCount = new AtomicLong();
+
+        try {
+            final List<Future<?>> producerFutures = new ArrayList<>();
+            final List<Future<?>> consumerFutures = new ArrayList<>();
+
+            for (int p = 0; p < producers; p++) {
+                producerFutures.add(executor.submit(() -> {
+                    for (long i = 1; i <= perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            for (int c = 0; c < consumers; c++) {
+                consumerFutures.add(executor.submit(() -> {
+                    while (true) {
+                        // Read the flag before polling, so that an empty poll after the producers finished is final
+                        final boolean done = !producing.get();
+                        final Long item = buffer.poll();
+
+                        if (item != null) {
+                            consumedSum.addAndGet(item);
+                            consumedCount.incrementAndGet();
+                        } else if (done) {
+                            return;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : producerFutures) {
+                future.get();
+            }
+
+            producing.set(false);
+
+            for (final Future<?> future : consumerFutures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals((long) producers * perProducer, consumedCount.get());
+        assertEquals(producers * ((long) perProducer * (perProducer + 1) / 2), consumedSum.get());
+    }
+}